@@ -11,7 +11,10 @@ import com.osmb.api.ui.chatbox.dialogue.Dialogue;
 import com.osmb.api.utils.RandomUtils;
 import com.osmb.api.utils.UIResult;
 import com.osmb.api.visual.drawing.Canvas;
+import com.sainty.common.InventoryQuery;
+import com.sainty.common.OcrCache;
 import com.sainty.common.Telemetry;
+import com.sainty.common.TileProjectionCache;
 import com.sainty.common.VersionChecker;
 import javafx.scene.Scene;
 
@@ -43,7 +46,8 @@ public class BabaYagaRuneBuyer extends Script {
     private long startTime;
     private Integer lastWorld = null;
 
-    private final Map<Integer, Integer> inventoryBeforeShop = new HashMap<>();
+    private InventoryQuery inventory;
+    private final TileProjectionCache projections = new TileProjectionCache(this);
 
     public BabaYagaRuneBuyer(Object core) {
         super(core);
@@ -57,6 +61,13 @@ public class BabaYagaRuneBuyer extends Script {
         }
 
         initializeRunes();
+        int[] ids = new int[runes.size() + 2];
+        for (int i = 0; i < runes.size(); i++) {
+            ids[i] = runes.get(i).itemId;
+        }
+        ids[runes.size()] = COINS;
+        ids[runes.size() + 1] = SEAL_OF_PASSAGE;
+        inventory = new InventoryQuery(ids);
 
         ScriptOptions ui = new ScriptOptions(runes);
         Scene scene = new Scene(ui);
@@ -66,6 +77,8 @@ public class BabaYagaRuneBuyer extends Script {
         shop = new RuneShopInterface(this);
         startTime = System.currentTimeMillis();
         Telemetry.sessionStart(SCRIPT_NAME);
+        Telemetry.register(SCRIPT_NAME, OcrCache.shared());
+        Telemetry.register(SCRIPT_NAME, projections);
 
         hopFlag = false;
         menuDesync = false;
@@ -97,6 +110,11 @@ public class BabaYagaRuneBuyer extends Script {
         return hopFlag;
     }
 
+    @Override
+    public void onNewFrame() {
+        projections.onNewFrame();
+    }
+
     @Override
     public int poll() {
         Integer world = getCurrentWorld();
@@ -117,6 +135,7 @@ public class BabaYagaRuneBuyer extends Script {
             return 0;
         }
 
+        inventory.refresh(this);
         updatePurchaseTracking();
         cacheInventoryState();
 
@@ -144,14 +163,8 @@ public class BabaYagaRuneBuyer extends Script {
     }
 
     private void cacheInventoryState() {
-        inventoryBeforeShop.clear();
         for (RuneConfig r : runes) {
-            if (!r.enabled) {
-                continue;
-            }
-            ItemGroupResult inv = getWidgetManager().getInventory().search(Set.of(r.itemId));
-            int amount = inv == null ? 0 : inv.getAmount(r.itemId);
-            inventoryBeforeShop.put(r.itemId, amount);
+            r.inventoryBeforeShop = r.enabled ? inventory.amount(r.itemId) : 0;
         }
     }
 
@@ -161,10 +174,8 @@ public class BabaYagaRuneBuyer extends Script {
                 continue;
             }
 
-            int beforeAmount = inventoryBeforeShop.getOrDefault(r.itemId, 0);
-
-            ItemGroupResult inv = getWidgetManager().getInventory().search(Set.of(r.itemId));
-            int currentAmount = inv == null ? 0 : inv.getAmount(r.itemId);
+            int beforeAmount = r.inventoryBeforeShop;
+            int currentAmount = inventory.amount(r.itemId);
 
             int gained = currentAmount - beforeAmount;
             if (gained > 0) {
@@ -174,8 +185,7 @@ public class BabaYagaRuneBuyer extends Script {
     }
 
     private boolean hasEnoughCoins() {
-        ItemGroupResult coins = getWidgetManager().getInventory().search(Set.of(COINS));
-        return coins != null && coins.getAmount(COINS) >= 1000;
+        return inventory.isVisible() && inventory.amount(COINS) >= 1000;
     }
 
     private void handleMenuDesync() {
@@ -192,10 +202,7 @@ public class BabaYagaRuneBuyer extends Script {
                 continue;
             }
 
-            ItemGroupResult inv = getWidgetManager().getInventory().search(Set.of(r.itemId));
-            int invAmt = inv == null ? 0 : inv.getAmount(r.itemId);
-
-            if (invAmt < r.targetTotal) {
+            if (inventory.amount(r.itemId) < r.targetTotal) {
                 return false;
             }
         }
@@ -222,7 +229,7 @@ public class BabaYagaRuneBuyer extends Script {
                 continue;
             }
 
-            int invAmt = inventoryBeforeShop.getOrDefault(r.itemId, 0);
+            int invAmt = r.inventoryBeforeShop;
 
             if (invAmt >= r.targetTotal) {
                 continue;
@@ -298,20 +305,11 @@ public class BabaYagaRuneBuyer extends Script {
                 continue;
             }
 
-            Polygon cube = getSceneProjector().getTileCube(pos, 90);
-            if (cube == null) {
-                continue;
-            }
-
-            Polygon resized = cube.getResized(TILE_CUBE_RESIZE);
+            Polygon resized = projections.getVisibleTileCube(pos, 90, TILE_CUBE_RESIZE);
             if (resized == null) {
                 continue;
             }
 
-            if (!getWidgetManager().insideGameScreen(resized, Collections.emptyList())) {
-                continue;
-            }
-
             if (getFinger().tapGameScreen(resized, "Trade")) {
                 pollFramesHuman(
                         () -> shop.isVisible(),
@@ -327,7 +325,7 @@ public class BabaYagaRuneBuyer extends Script {
     }
 
     private void ensureSealEquipped() {
-        ItemGroupResult inv = getWidgetManager().getInventory().search(Set.of(SEAL_OF_PASSAGE));
+        ItemGroupResult inv = inventory.getResult();
 
         if (inv != null && inv.contains(SEAL_OF_PASSAGE)) {
             ItemSearchResult seal = inv.getItem(SEAL_OF_PASSAGE);
@@ -357,6 +355,10 @@ public class BabaYagaRuneBuyer extends Script {
         c.drawText(title, x - 1, y + 24, 0xFFFFFFFF, titleFont);
     }
 
+    public void onStop() {
+        Telemetry.sessionEnd(SCRIPT_NAME);
+    }
+
     @Override
     public void onPaint(Canvas c) {
         long elapsed = System.currentTimeMillis() - startTime;
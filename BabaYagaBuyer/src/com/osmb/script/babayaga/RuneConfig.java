@@ -8,6 +8,7 @@ public class RuneConfig {
 	public int targetTotal = 0;
 	public int perWorld = 0;
 	public int totalBought = 0;
+	public int inventoryBeforeShop = 0;
 	
 	public RuneConfig(int itemId, String name, int baseStock) {
 		this.itemId = itemId;
@@ -17,7 +17,12 @@ import com.osmb.api.ui.component.tabs.SettingsTabComponent;
 import com.osmb.api.utils.RandomUtils;
 import com.osmb.api.visual.drawing.Canvas;
 import com.osmb.api.walker.WalkConfig;
+import com.sainty.common.FrameSnapshot;
+import com.sainty.common.MotionTracker;
+import com.sainty.common.PollTimer;
 import com.sainty.common.Telemetry;
+import com.sainty.common.TileGrid;
+import com.sainty.common.TileProjectionCache;
 import com.sainty.common.VersionChecker;
 
 import java.awt.*;
@@ -71,8 +76,6 @@ public class BoneBlesser extends Script {
         }
     }
 
-    private WorldPosition lastPos;
-    private long lastPosChange;
     private long lastWalkAt;
     private long lastUnnoteAt;
     private long lastBlessAt;
@@ -117,6 +120,11 @@ public class BoneBlesser extends Script {
     }
 
     private ChiselState chiselState = ChiselState.IDLE;
+    private final PollTimer<BoneBlessingTask> pollTimer = new PollTimer<>(BoneBlessingTask.class);
+    private final FrameSnapshot frame = new FrameSnapshot(this);
+    private final MotionTracker motion = new MotionTracker(this);
+    private final TileGrid npcGrid = new TileGrid();
+    private final TileProjectionCache projections = new TileProjectionCache(this);
 
     public BoneBlesser(Object core) {
         super(core);
@@ -136,6 +144,9 @@ public class BoneBlesser extends Script {
         lastSuccessfulUnnoteAt = System.currentTimeMillis();
         lastNotedCount = -1;
         Telemetry.sessionStart(SCRIPT_NAME);
+        Telemetry.register(SCRIPT_NAME, pollTimer);
+        Telemetry.register(SCRIPT_NAME, frame);
+        Telemetry.register(SCRIPT_NAME, projections);
         INV_IDS.clear();
         for (BoneType t : BoneType.values()) {
             INV_IDS.add(t.unblessedId);
@@ -143,6 +154,8 @@ public class BoneBlesser extends Script {
             INV_IDS.add(t.blessedId);
         }
         INV_IDS.add(CHISEL_ID);
+        // Shards ride along so the tracking lookup is answered from the same frame's search
+        INV_IDS.add(BONE_SHARDS_ID);
         log("BoneBlesser", "Started – auto-detecting bone type from inventory");
     }
 
@@ -168,16 +181,7 @@ public class BoneBlesser extends Script {
     }
 
     private boolean recentlyMoved() {
-        WorldPosition now = getWorldPosition();
-        if (now == null) {
-            return true;
-        }
-        if (!now.equals(lastPos)) {
-            lastPos = now;
-            lastPosChange = System.currentTimeMillis();
-            return true;
-        }
-        return System.currentTimeMillis() - lastPosChange < STABLE_MS;
+        return !motion.isStationaryFor(STABLE_MS);
     }
 
     private long getWalkCooldown() {
@@ -196,8 +200,7 @@ public class BoneBlesser extends Script {
         if (recentlyMoved()) {
             return false;
         }
-        var d = getWidgetManager().getDialogue();
-        return d == null || !d.isVisible();
+        return !frame.isDialogueVisible();
     }
 
     private boolean inRect(WorldPosition p, Rectangle r) {
@@ -235,7 +238,8 @@ public class BoneBlesser extends Script {
                 return;
             }
 
-            // Bones not found in search - check if they exist but are selected/clicked
+            // Bones not found in search - check if they exist but are selected/clicked.
+            // These go straight to the inventory: the frame's cached search is the one that just missed them
             var invWidget = getWidgetManager().getInventory();
             if (invWidget != null) {
                 ItemGroupResult notedSearch = invWidget.search(Collections.singleton(selectedBone.notedId));
@@ -327,10 +331,13 @@ public class BoneBlesser extends Script {
             return -1;
         }
 
+        long pollStart = pollTimer.start();
         BoneBlessingTask task = decideTask(ctx);
         if (task == null) return RandomUtils.gaussianRandom(200, 2500, 575, 575);
 
-        return executeTask(task, ctx);
+        int delay = executeTask(task, ctx);
+        pollTimer.record(task, pollStart);
+        return delay;
     }
 
     private void handleHousekeeping() {
@@ -359,9 +366,10 @@ public class BoneBlesser extends Script {
         // Skip when chisel is selected (CLICKED_CHISEL) so we don't deselect before clicking a bone.
         if (chiselState != ChiselState.CLICKED_CHISEL) {
             getWidgetManager().getInventory().unSelectItemIfSelected();
+            frame.invalidate();
         }
 
-        ItemGroupResult inv = getWidgetManager().getInventory().search(INV_IDS);
+        ItemGroupResult inv = frame.search(INV_IDS);
         if (inv == null) {
             return null;
         }
@@ -378,20 +386,17 @@ public class BoneBlesser extends Script {
 
         long now = System.currentTimeMillis();
         // Search for bones - handle null results safely (can happen if items are selected)
-        ItemGroupResult notedSearch = getWidgetManager().getInventory()
-                .search(Collections.singleton(selectedBone.notedId));
+        ItemGroupResult notedSearch = frame.search(Collections.singleton(selectedBone.notedId));
         ItemSearchResult noted = notedSearch != null ? notedSearch.getItem(selectedBone.notedId) : null;
 
-        ItemGroupResult unblessedSearch = getWidgetManager().getInventory()
-                .search(Collections.singleton(selectedBone.unblessedId));
+        ItemGroupResult unblessedSearch = frame.search(Collections.singleton(selectedBone.unblessedId));
         ItemSearchResult unblessed = unblessedSearch != null ? unblessedSearch.getItem(selectedBone.unblessedId) : null;
 
-        ItemGroupResult blessedSearch = getWidgetManager().getInventory()
-                .search(Collections.singleton(selectedBone.blessedId));
+        ItemGroupResult blessedSearch = frame.search(Collections.singleton(selectedBone.blessedId));
         ItemSearchResult blessed = blessedSearch != null ? blessedSearch.getItem(selectedBone.blessedId) : null;
 
         ItemSearchResult chisel = inv.getItem(CHISEL_ID);
-        WorldPosition position = getWorldPosition();
+        WorldPosition position = frame.getWorldPosition();
 
         return new BoneContext(inv, position, noted, unblessed, blessed, chisel, now);
     }
@@ -406,9 +411,7 @@ public class BoneBlesser extends Script {
         }
 
         if (ctx.blessed != null) {
-            ItemSearchResult shardStack = getWidgetManager().getInventory()
-                    .search(Collections.singleton(BONE_SHARDS_ID))
-                    .getItem(BONE_SHARDS_ID);
+            ItemSearchResult shardStack = ctx.inv.getItem(BONE_SHARDS_ID);
             if (shardStack != null) {
                 int current = shardStack.getStackAmount();
                 if (lastShardCount != -1 && current > lastShardCount) {
@@ -456,8 +459,7 @@ public class BoneBlesser extends Script {
 
     private BoneBlessingTask decideTask(BoneContext ctx) {
         // Handle dialogue first (highest priority)
-        var dialogue = getWidgetManager().getDialogue();
-        if (dialogue != null && dialogue.isVisible()) {
+        if (frame.isDialogueVisible()) {
             return BoneBlessingTask.HANDLE_DIALOGUE;
         }
 
@@ -579,9 +581,9 @@ public class BoneBlesser extends Script {
     private ItemSearchResult findChiselTarget() {
         if (selectedBone == null) return null;
 
-        List<ItemSearchResult> allBlessed = getWidgetManager().getInventory()
-                .search(Collections.singleton(selectedBone.blessedId))
-                .getAllOfItem(selectedBone.blessedId);
+        ItemGroupResult search = frame.search(Collections.singleton(selectedBone.blessedId));
+        if (search == null) return null;
+        List<ItemSearchResult> allBlessed = search.getAllOfItem(selectedBone.blessedId);
         if (allBlessed != null && !allBlessed.isEmpty()) {
             for (ItemSearchResult r : allBlessed) {
                 if (r != null && r.getSlot() == 27) {
@@ -629,7 +631,7 @@ public class BoneBlesser extends Script {
         pollFramesHuman(() -> true, RandomUtils.gaussianRandom(100, 800, 200, 200));
 
         // Re-find NPC position AFTER the delay, as NPC may have moved
-        WorldPosition myPos = getWorldPosition();
+        WorldPosition myPos = frame.getWorldPosition();
         if (myPos == null) {
             return RandomUtils.gaussianRandom(200, 2500, 575, 575);
         }
@@ -639,21 +641,12 @@ public class BoneBlesser extends Script {
             return RandomUtils.gaussianRandom(200, 2500, 575, 575);
         }
 
-        // Get fresh polygon for current NPC position
-        Polygon cube = getSceneProjector().getTileCube(currentNPCPos, 90);
-        if (cube == null) {
-            return RandomUtils.gaussianRandom(200, 2500, 575, 575);
-        }
-
-        Polygon resized = cube.getResized(NPC_CUBE_RESIZE);
+        // Polygon for current NPC position, reused from the search above unless the view moved
+        Polygon resized = projections.getVisibleTileCube(currentNPCPos, 90, NPC_CUBE_RESIZE);
         if (resized == null) {
             return RandomUtils.gaussianRandom(200, 2500, 575, 575);
         }
 
-        if (!getWidgetManager().insideGameScreen(resized, Collections.emptyList())) {
-            return RandomUtils.gaussianRandom(200, 2500, 575, 575);
-        }
-
         // Use MenuHook to verify we're clicking "Use <bonetype>" -> "Virilis" not "Talk"
         MenuHook menuHook = createUnnoteMenuHook();
 
@@ -779,54 +772,26 @@ public class BoneBlesser extends Script {
             return null;
         }
 
-        var npcPositions = getWidgetManager().getMinimap().getNPCPositions();
+        var npcPositions = frame.getNPCPositions();
         if (npcPositions == null || npcPositions.isNotVisible()) {
             return null;
         }
 
-        WorldPosition closestNPC = null;
-        double closestDistance = Double.MAX_VALUE;
-
-        for (WorldPosition npc : npcPositions) {
-            // Filter by area
-            if (!inRect(npc, VIRILIS_AREA)) {
-                continue;
+        // Closest first, so only NPCs up to the first valid one are projected
+        npcGrid.clear();
+        npcGrid.addAll(npcPositions.asList());
+        return npcGrid.nearest(myPos, npc -> {
+            // Filter by area, excluding Renu
+            if (!inRect(npc, VIRILIS_AREA) || inRect(npc, RENU_RECT)) {
+                return false;
             }
-
-            // Exclude Renu
-            if (inRect(npc, RENU_RECT)) {
-                continue;
-            }
-
-            // Check distance
-            double distance = myPos.distanceTo(npc);
-            if (distance > MAX_NPC_DISTANCE) {
-                continue;
+            if (myPos.distanceTo(npc) > MAX_NPC_DISTANCE) {
+                return false;
             }
 
             // Validate NPC is visible on screen
-            Polygon cube = getSceneProjector().getTileCube(npc, 90);
-            if (cube == null) {
-                continue;
-            }
-
-            Polygon resized = cube.getResized(NPC_CUBE_RESIZE);
-            if (resized == null) {
-                continue;
-            }
-
-            if (!getWidgetManager().insideGameScreen(resized, Collections.emptyList())) {
-                continue;
-            }
-
-            // Track closest valid NPC
-            if (distance < closestDistance) {
-                closestDistance = distance;
-                closestNPC = npc;
-            }
-        }
-
-        return closestNPC;
+            return projections.getVisibleTileCube(npc, 90, NPC_CUBE_RESIZE) != null;
+        });
     }
 
     private int walkToAltar() {
@@ -856,6 +821,17 @@ public class BoneBlesser extends Script {
         c.drawText(title, x - 1, y + 24, 0xFFFFFFFF, titleFont);
     }
 
+    @Override
+    public void onNewFrame() {
+        frame.onNewFrame();
+        motion.onNewFrame();
+        projections.onNewFrame();
+    }
+
+    public void onStop() {
+        Telemetry.sessionEnd(SCRIPT_NAME);
+    }
+
     @Override
     public void onPaint(Canvas c) {
         long elapsed = System.currentTimeMillis() - scriptStartTime;
@@ -9,9 +9,8 @@ import com.osmb.api.ui.overlay.HealthOverlay;
 import com.osmb.api.utils.RandomUtils;
 import com.osmb.api.walker.pathing.CollisionManager;
 import com.osmb.script.chickenkiller.ChickenScript;
+import com.sainty.common.TileGrid;
 
-import java.util.ArrayList;
-import java.util.Comparator;
 import java.util.List;
 import java.util.Random;
 import java.util.Set;
@@ -27,6 +26,8 @@ public class KillChickenTask extends Task {
     private long lastWorldHopTimeMs = 0;
     private int consecutiveEmptySpawnCycles = 0;
     private final Random random;
+    private final TileGrid playerGrid = new TileGrid();
+    private final TileGrid chickenGrid = new TileGrid();
 
     public KillChickenTask(ChickenScript script) {
         super(script);
@@ -92,7 +93,11 @@ public class KillChickenTask extends Task {
             return false;
         }
 
-        List<WorldPosition> unoccupiedChickens = new ArrayList<>();
+        // Occupied player tiles, so each chicken's "is someone next to it" check is four lookups
+        playerGrid.clear();
+        playerGrid.addAll(otherPlayerPositions);
+        chickenGrid.clear();
+        int unoccupiedCount = 0;
 
         for (WorldPosition chickenPosition : chickenPositions) {
             if (!CHICKEN_COOP_AREA.contains(chickenPosition)) continue;
@@ -101,22 +106,13 @@ public class KillChickenTask extends Task {
                 continue;
             }
 
-            boolean chickenIsBeingAttackedByAnotherPlayer = false;
-            if (otherPlayerPositions != null) {
-                for (WorldPosition otherPlayer : otherPlayerPositions) {
-                    if (CollisionManager.isCardinallyAdjacent(chickenPosition, otherPlayer)) {
-                        chickenIsBeingAttackedByAnotherPlayer = true;
-                        break;
-                    }
-                }
-            }
-
-            if (!chickenIsBeingAttackedByAnotherPlayer) {
-                unoccupiedChickens.add(chickenPosition);
+            if (!playerGrid.hasCardinalNeighbour(chickenPosition)) {
+                chickenGrid.add(chickenPosition);
+                unoccupiedCount++;
             }
         }
 
-        if (unoccupiedChickens.isEmpty()) {
+        if (unoccupiedCount == 0) {
             consecutiveEmptySpawnCycles++;
             if (worldHopCooldownHasElapsed()) {
                 script.log(getClass(), "All chickens occupied - hopping worlds");
@@ -129,14 +125,11 @@ public class KillChickenTask extends Task {
 
         consecutiveEmptySpawnCycles = 0;
 
-        int maxCandidates = Math.min(6, unoccupiedChickens.size());
+        int maxCandidates = Math.min(6, unoccupiedCount);
         int minCandidates = Math.min(3, maxCandidates);
         int candidateCount = maxCandidates > 1 ? random.nextInt(minCandidates, maxCandidates + 1) : 1;
 
-        unoccupiedChickens = unoccupiedChickens.stream()
-                .sorted(Comparator.comparingDouble(chicken -> chicken.distanceTo(playerPosition)))
-                .limit(candidateCount)
-                .toList();
+        List<WorldPosition> unoccupiedChickens = chickenGrid.nearest(playerPosition, candidateCount, Double.MAX_VALUE, null);
 
         if (unoccupiedChickens.isEmpty()) {
             script.log(getClass(), "No unoccupied chickens available");
@@ -146,13 +139,6 @@ public class KillChickenTask extends Task {
         WorldPosition attackedChicken = null;
 
         for (WorldPosition chickenPosition : unoccupiedChickens) {
-            Polygon chickenTilePolygon;
-            try {
-                chickenTilePolygon = script.getSceneProjector().getTileCube(chickenPosition, 50).getResized(0.7);
-            } catch (NullPointerException e) {
-                continue;
-            }
-
             boolean chickenStillPresent = false;
             for (WorldPosition currentNpcPosition : script.getWidgetManager().getMinimap().getNPCPositions()) {
                 if (currentNpcPosition.equals(chickenPosition)) {
@@ -161,8 +147,16 @@ public class KillChickenTask extends Task {
                 }
             }
 
+            // Only project chickens that are still there
             if (!chickenStillPresent) continue;
 
+            Polygon chickenTilePolygon;
+            try {
+                chickenTilePolygon = script.getSceneProjector().getTileCube(chickenPosition, 50).getResized(0.7);
+            } catch (NullPointerException e) {
+                continue;
+            }
+
             if (script.getFinger().tapGameScreen(chickenTilePolygon, menuEntries -> menuEntries.stream()
                     .filter(entry -> entry.getRawText().toLowerCase().contains("attack"))
                     .filter(entry -> entry.getRawText().toLowerCase().contains("chicken"))
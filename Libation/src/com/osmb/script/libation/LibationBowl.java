@@ -13,6 +13,10 @@ import com.osmb.api.ui.component.tabs.skill.SkillType;
 import com.osmb.api.utils.RandomUtils;
 import com.osmb.api.visual.drawing.Canvas;
 import com.osmb.api.walker.WalkConfig;
+import com.sainty.common.ColorMatcher;
+import com.sainty.common.OcrCache;
+import com.sainty.common.PollTimer;
+import com.sainty.common.RouteCache;
 import com.sainty.common.Telemetry;
 import com.sainty.common.VersionChecker;
 import javafx.scene.Scene;
@@ -112,6 +116,8 @@ public class LibationBowl extends Script {
     }
 
     private SunfireState sunfireState = SunfireState.IDLE;
+    private final PollTimer<LibationTask> pollTimer = new PollTimer<>(LibationTask.class);
+    private final RouteCache routes = new RouteCache(this, SCRIPT_NAME);
 
 
     public LibationBowl(Object core) {
@@ -139,6 +145,9 @@ public class LibationBowl extends Script {
 
         scriptStartTime = System.currentTimeMillis();
         Telemetry.sessionStart(SCRIPT_NAME);
+        Telemetry.register(SCRIPT_NAME, OcrCache.shared());
+        Telemetry.register(SCRIPT_NAME, pollTimer);
+        Telemetry.register(SCRIPT_NAME, routes);
 
         ScriptOptions ui = new ScriptOptions();
         getStageController().show(new Scene(ui), "Libation Bowl Options", false);
@@ -163,6 +172,7 @@ public class LibationBowl extends Script {
         getWidgetManager().getInventory().registerInventoryComponent(wineShop);
 
         quetzalMap = new QuetzalMapInterface(this);
+        ColorMatcher.prepareAll();
 
         log("LibationBowl",
                 "Started. Sunfire=" + useSunfire + ", BankedWine=" + useBankedWine);
@@ -182,10 +192,13 @@ public class LibationBowl extends Script {
             return 0;
         }
 
+        long pollStart = pollTimer.start();
         LibationTask task = decideTask(ctx);
         if (task == null) return 0;
 
-        return executeTask(task, ctx);
+        int delay = executeTask(task, ctx);
+        pollTimer.record(task, pollStart);
+        return delay;
     }
 
     private void handleHousekeeping() {
@@ -490,6 +503,7 @@ public class LibationBowl extends Script {
         // deposit empty jugs
         if (hasJugs) {
             depositIfPresent(EMPTY_JUG);
+            routes.endLoop();
         }
 
         boolean withdrewWine = false;
@@ -801,10 +815,7 @@ public class LibationBowl extends Script {
             log("LibationBowl", "World/local position null (loading) — skipping walk.");
             return;
         }
-        WalkConfig cfg = new WalkConfig.Builder()
-                .setWalkMethods(false, true)
-                .build();
-        getWalker().walkTo(target, cfg);
+        routes.walkTo(target, new WalkConfig.Builder().setWalkMethods(false, true), null);
         walkCooldownUntil = System.currentTimeMillis() + getWalkCooldown();
     }
 
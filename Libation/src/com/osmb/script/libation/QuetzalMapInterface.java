@@ -3,9 +3,8 @@ package com.osmb.script.libation;
 import com.osmb.api.ScriptCore;
 import com.osmb.api.shape.Rectangle;
 import com.osmb.api.utils.RandomUtils;
-import com.osmb.api.visual.SearchablePixel;
-import com.osmb.api.visual.color.ColorModel;
-import com.osmb.api.visual.color.tolerance.impl.SingleThresholdComparator;
+import com.sainty.common.ColorMatcher;
+import com.sainty.common.PixelCounter;
 
 import java.awt.*;
 import java.util.List;
@@ -27,10 +26,12 @@ public class QuetzalMapInterface {
     // Background scroll colour
     private static final int SCROLL_PIXEL_COLOR = -11578025;
     private static final int SCROLL_PIXEL_MIN_COUNT = 10;
+    private static final ColorMatcher SCROLL_PIXEL = ColorMatcher.rgb(2, SCROLL_PIXEL_COLOR);
 
     // X button detection
     private static final int MAP_X_BUTTON_COLOR = -2049926;
     private static final int MAP_X_OFFSET_FROM_MAP_RIGHT = 24;
+    private static final ColorMatcher MAP_X_BUTTON_PIXEL = ColorMatcher.rgb(2, MAP_X_BUTTON_COLOR);
 
     private Rectangle cachedBounds = null;
 
@@ -80,14 +81,7 @@ public class QuetzalMapInterface {
     private boolean hasScrollPixel(Rectangle bounds) {
         if (bounds == null) return false;
 
-        SearchablePixel pixel = new SearchablePixel(
-                SCROLL_PIXEL_COLOR,
-                new SingleThresholdComparator(2),
-                ColorModel.RGB
-        );
-
-        List<Point> list = core.getPixelAnalyzer().findPixels(bounds, new SearchablePixel[]{pixel});
-        return list != null && list.size() >= SCROLL_PIXEL_MIN_COUNT;
+        return PixelCounter.atLeast(core, bounds, SCROLL_PIXEL, SCROLL_PIXEL_MIN_COUNT, PixelCounter.DEFAULT_STRIDE);
     }
 
     // Find X button by pixel colour, infer map rect, confirm with scroll pixel
@@ -95,13 +89,7 @@ public class QuetzalMapInterface {
         Rectangle screen = core.getScreen() != null ? core.getScreen().getBounds() : null;
         if (screen == null) return null;
 
-        SearchablePixel xPixel = new SearchablePixel(
-                MAP_X_BUTTON_COLOR,
-                new SingleThresholdComparator(2),
-                ColorModel.RGB
-        );
-
-        List<Point> xPoints = core.getPixelAnalyzer().findPixels(screen, new SearchablePixel[]{xPixel});
+        List<Point> xPoints = MAP_X_BUTTON_PIXEL.find(core, screen);
         if (xPoints == null || xPoints.size() < 5) return null;
 
         // Find bounding box of X button pixels
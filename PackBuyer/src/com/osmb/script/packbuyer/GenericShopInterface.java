@@ -14,6 +14,7 @@ import com.osmb.api.visual.color.tolerance.ToleranceComparator;
 import com.osmb.api.visual.drawing.BorderPalette;
 import com.osmb.api.visual.drawing.Canvas;
 import com.osmb.api.visual.ocr.fonts.Font;
+import com.sainty.common.OcrCache;
 
 import java.awt.*;
 import java.util.List;
@@ -49,7 +50,9 @@ public class GenericShopInterface extends ComponentCentered implements ItemGroup
             return false;
         }
 
-        String title = core.getOCR().getText(
+        // The title bar rarely changes while the shop is open, so most checks are cache hits
+        String title = OcrCache.shared().getText(
+                core,
                 Font.STANDARD_FONT_BOLD,
                 b.getSubRectangle(TITLE_BOUNDS),
                 ColorUtils.ORANGE_UI_TEXT
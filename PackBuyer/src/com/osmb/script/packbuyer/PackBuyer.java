@@ -11,12 +11,14 @@ import com.osmb.api.shape.Polygon;
 import com.osmb.api.utils.RandomUtils;
 import com.osmb.api.visual.drawing.Canvas;
 import com.osmb.script.packbuyer.javafx.ScriptOptions;
+import com.sainty.common.InventoryQuery;
+import com.sainty.common.OcrCache;
 import com.sainty.common.Telemetry;
+import com.sainty.common.TileProjectionCache;
 import com.sainty.common.VersionChecker;
 import javafx.scene.Scene;
 
 import java.awt.*;
-import java.util.Collections;
 import java.util.Map;
 import java.util.Set;
 
@@ -101,6 +103,8 @@ public class PackBuyer extends Script {
 
     private PackModeConfig config;
     private GenericShopInterface shop;
+    private InventoryQuery inventory;
+    private final TileProjectionCache projections = new TileProjectionCache(this);
     private boolean hopFlag = false;
     private boolean menuDesync = false;
     private Integer lastWorld = null;
@@ -134,6 +138,8 @@ public class PackBuyer extends Script {
 
         scriptStartTime = System.currentTimeMillis();
         Telemetry.sessionStart(SCRIPT_NAME);
+        Telemetry.register(SCRIPT_NAME, OcrCache.shared());
+        Telemetry.register(SCRIPT_NAME, projections);
 
         ScriptOptions ui = new ScriptOptions(
                 FEATHER_GERRANT,
@@ -143,6 +149,7 @@ public class PackBuyer extends Script {
                 selected -> {
                     config = selected;
                     shop = new GenericShopInterface(this, config.shopTitle);
+                    inventory = new InventoryQuery(config.packItemId, config.openedItemId, COINS, MARK_OF_GRACE);
                     startTime = System.currentTimeMillis();
                     log("Config received | mode=" + config.mode +
                             " perWorld=" + config.perWorld +
@@ -171,6 +178,11 @@ public class PackBuyer extends Script {
         return hopFlag;
     }
 
+    @Override
+    public void onNewFrame() {
+        projections.onNewFrame();
+    }
+
     @Override
     public int poll() {
         Integer world = getCurrentWorld();
@@ -203,6 +215,8 @@ public class PackBuyer extends Script {
             return 0;
         }
 
+        inventory.refresh(this);
+
         if (hasPack()) {
             log("Pack detected in inventory");
             openPack();
@@ -227,7 +241,7 @@ public class PackBuyer extends Script {
             return 0;
         }
 
-        cachedPackCount = getInventoryAmount(config.packItemId);
+        cachedPackCount = inventory.amount(config.packItemId);
         openShop();
         return 0;
     }
@@ -244,8 +258,7 @@ public class PackBuyer extends Script {
             requiredAmount = 10000;
         }
 
-        ItemGroupResult inv = getWidgetManager().getInventory().search(Set.of(currencyId));
-        return inv != null && inv.getAmount(currencyId) >= requiredAmount;
+        return inventory.amount(currencyId) >= requiredAmount;
     }
 
     private void handleShop() {
@@ -307,7 +320,7 @@ public class PackBuyer extends Script {
     }
 
     private void openPack() {
-        ItemGroupResult inv = getWidgetManager().getInventory().search(Set.of(config.packItemId));
+        ItemGroupResult inv = inventory.getResult();
         if (inv == null) {
             return;
         }
@@ -317,7 +330,7 @@ public class PackBuyer extends Script {
             return;
         }
 
-        int before = getInventoryAmount(config.openedItemId);
+        int before = inventory.amount(config.openedItemId);
 
         if (!getFinger().tap(pack.getBounds())) {
             log("Failed to tap pack");
@@ -338,13 +351,12 @@ public class PackBuyer extends Script {
     }
 
     private int getInventoryAmount(int id) {
-        ItemGroupResult inv = getWidgetManager().getInventory().search(Set.of(id));
-        return inv == null ? 0 : inv.getAmount(id);
+        inventory.refresh(this);
+        return inventory.amount(id);
     }
 
     private boolean hasPack() {
-        ItemGroupResult inv = getWidgetManager().getInventory().search(Set.of(config.packItemId));
-        return inv != null && inv.contains(config.packItemId);
+        return inventory.contains(config.packItemId);
     }
 
     private void openShop() {
@@ -367,20 +379,11 @@ public class PackBuyer extends Script {
                 continue;
             }
 
-            Polygon cube = getSceneProjector().getTileCube(pos, 90);
-            if (cube == null) {
-                continue;
-            }
-
-            Polygon resized = cube.getResized(TILE_CUBE_RESIZE);
+            Polygon resized = projections.getVisibleTileCube(pos, 90, TILE_CUBE_RESIZE);
             if (resized == null) {
                 continue;
             }
 
-            if (!getWidgetManager().insideGameScreen(resized, Collections.emptyList())) {
-                continue;
-            }
-
             if (getFinger().tapGameScreen(resized, "Trade")) {
                 log("Attempted to open shop");
                 pollFramesHuman(
@@ -442,6 +445,10 @@ public class PackBuyer extends Script {
         return gp + " gp";
     }
 
+    public void onStop() {
+        Telemetry.sessionEnd(SCRIPT_NAME);
+    }
+
     @Override
     public void onPaint(Canvas c) {
         long elapsed = System.currentTimeMillis() - startTime;
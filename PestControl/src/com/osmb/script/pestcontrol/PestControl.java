@@ -12,7 +12,11 @@ import com.osmb.api.ui.overlay.HealthOverlay;
 import com.osmb.api.utils.RandomUtils;
 import com.osmb.api.visual.drawing.Canvas;
 import com.osmb.api.walker.WalkConfig;
+import com.sainty.common.MotionTracker;
+import com.sainty.common.PollTimer;
+import com.sainty.common.SceneIndex;
 import com.sainty.common.Telemetry;
+import com.sainty.common.TileProjectionCache;
 import com.sainty.common.VersionChecker;
 import javafx.geometry.Insets;
 import javafx.scene.Scene;
@@ -25,7 +29,6 @@ import javafx.scene.layout.VBox;
 import java.awt.*;
 import java.util.*;
 import java.util.List;
-import java.util.stream.Collectors;
 
 @ScriptDefinition(
         name = "Dumb PestControl",
@@ -84,8 +87,6 @@ public class PestControl extends Script {
     private boolean attacking = false;
     private HealthOverlay targetOverlay;
 
-    private WorldPosition lastStablePos = null;
-    private long lastStableTime = 0;
     private long lastWalkAt = 0;
 
     private Integer lastHp = null;
@@ -163,6 +164,12 @@ public class PestControl extends Script {
         ENSURE_CORRECT_WORLD
     }
 
+    private final PollTimer<PestControlTask> pollTimer = new PollTimer<>(PestControlTask.class);
+    private final SceneIndex sceneIndex = new SceneIndex(this);
+    private final MotionTracker motion = new MotionTracker(this);
+    private final TargetTracker targets = new TargetTracker();
+    private final TileProjectionCache projections = new TileProjectionCache(this);
+
     private static class PestControlContext {
         final WorldPosition position;
         final int region;
@@ -188,6 +195,10 @@ public class PestControl extends Script {
 
         scriptStartTime = System.currentTimeMillis();
         Telemetry.sessionStart(SCRIPT_NAME);
+        Telemetry.register(SCRIPT_NAME, pollTimer);
+        Telemetry.register(SCRIPT_NAME, projections);
+        Telemetry.register(SCRIPT_NAME, targets);
+        targetOverlay = new HealthOverlay(this);
 
         addCustomMap(new MapDefinition(2624, 2560, 64, 64, 0, 0));
         addCustomMap(new MapDefinition(2624, 2624, 64, 64, 0, 0));
@@ -201,6 +212,13 @@ public class PestControl extends Script {
         startTime = System.currentTimeMillis();
     }
 
+    @Override
+    public void onNewFrame() {
+        sceneIndex.onNewFrame();
+        projections.onNewFrame();
+        motion.onNewFrame();
+    }
+
     @Override
     public int poll() {
         handleHousekeeping();
@@ -212,28 +230,26 @@ public class PestControl extends Script {
 
         detectRegionTransition(ctx);
 
+        long pollStart = pollTimer.start();
         PestControlTask task = decideTask(ctx);
         if (task == null) {
             return RandomUtils.gaussianRandom(40, 80, 55, 10);
         }
 
-        return executeTask(task, ctx);
+        int delay = executeTask(task, ctx);
+        pollTimer.record(task, pollStart);
+        return delay;
     }
 
     private void handleHousekeeping() {
         long now = System.currentTimeMillis();
         if (now - lastTelemetryFlushMs >= TELEMETRY_INTERVAL_MS) {
             lastTelemetryFlushMs = now;
-            long start = scriptStartTime;
-            long points = totalPoints;
-            long wins = gamesWon;
-
-            Thread t = new Thread(() -> Telemetry.flush(
-                    SCRIPT_NAME, start, Map.of("PC_points_gained", points, "games_won", wins)
-            ));
-            t.setDaemon(true);
-            t.setName("PestControl-telemetry");
-            t.start();
+            Telemetry.flush(
+                    SCRIPT_NAME,
+                    scriptStartTime,
+                    Map.of("PC_points_gained", (long) totalPoints, "games_won", (long) gamesWon)
+            );
         }
     }
 
@@ -260,6 +276,12 @@ public class PestControl extends Script {
             winDetected = false;
             recoveringToCombat = false;
             recoverTarget = null;
+            attacking = false;
+            targets.endGame();
+        }
+        if (ctx.region != lastRegion) {
+            sceneIndex.invalidate();
+            projections.invalidate();
         }
         lastRegion = ctx.region;
     }
@@ -304,7 +326,9 @@ public class PestControl extends Script {
     private int executeTask(PestControlTask task, PestControlContext ctx) {
         return switch (task) {
             case HANDLE_GAME -> {
+                long cpuStart = TargetTracker.cpuNanos();
                 handleGame();
+                targets.recordWork(cpuStart);
                 yield RandomUtils.gaussianRandom(40, 80, 55, 10);
             }
             case HANDLE_LOBBY -> {
@@ -323,7 +347,7 @@ public class PestControl extends Script {
 
         trackDeath();
 
-        WorldPosition me = getWorldPosition();
+        WorldPosition me = motion.getPosition();
         if (me == null) {
             return;
         }
@@ -337,7 +361,7 @@ public class PestControl extends Script {
         // If outside safe area, walk back (gate is closed by default so pathfinding fails past it)
         if (!SAFE_COMBAT_AREA.contains(me)) {
             attacking = false;
-            targetOverlay = null;
+            targets.drop();
 
             if (recoveringToCombat) {
                 if (tryInteractWithGate()) {
@@ -372,70 +396,67 @@ public class PestControl extends Script {
         }
 
         // Check if still in combat
+        long now = System.currentTimeMillis();
         if (attacking) {
-            if (targetOverlay == null || !targetOverlay.isVisible()) {
-                attacking = false;
-                targetOverlay = null;
-            } else {
+            if (targetOverlay.isVisible()) {
+                targets.markEngaged(getTargetHitpoints());
                 return;
             }
+            // Tapped but not fighting yet: stay on the target while it's still there
+            if (targets.isLockPending(now)) {
+                refreshTargets(me, now);
+                if (targets.getLocked() != null) {
+                    return;
+                }
+            }
+            targets.release(now);
+            attacking = false;
         }
 
-        attacking = false;
-        targetOverlay = null;
-        attackNpc();
+        attackNpc(me, now);
     }
 
-    private boolean attackNpc() {
-        WorldPosition me = getWorldPosition();
-        if (me == null) {
-            return false;
-        }
-
-        var wm = getWidgetManager();
-        if (wm == null) {
-            return false;
-        }
+    private Integer getTargetHitpoints() {
+        HealthOverlay.HealthResult health = (HealthOverlay.HealthResult) targetOverlay.getValue(HealthOverlay.HEALTH);
+        return health != null ? health.getCurrentHitpoints() : null;
+    }
 
-        var minimap = wm.getMinimap();
-        if (minimap == null) {
+    private boolean attackNpc(WorldPosition me, long now) {
+        if (!refreshTargets(me, now)) {
             return false;
         }
 
-        List<WorldPosition> npcs = minimap.getNPCPositions().asList();
-
-        List<WorldPosition> targets = npcs.stream()
-                .filter(COMBAT_AREA::contains)
-                .filter(p -> !p.equals(VOID_KNIGHT_TILE))
-                .filter(p -> !p.equals(SQUIRE_TILE))
-                .sorted(Comparator.comparingDouble(p -> p.distanceTo(me)))
-                .limit(6)
-                .collect(Collectors.toList());
-
-        for (WorldPosition npc : targets) {
-            Polygon poly = getSceneProjector().getTileCube(npc, 75);
-            if (poly == null) {
-                continue;
-            }
-
-            Polygon resized = poly.getResized(0.7);
-            if (resized == null || resized.getBounds() == null) {
-                continue;
-            }
-
-            if (!wm.insideGameScreen(resized, Collections.emptyList())) {
+        for (WorldPosition npc : targets.next(6)) {
+            Polygon resized = projections.getVisibleTileCube(npc, 75, 0.7);
+            if (resized == null) {
                 continue;
             }
 
             if (getFinger().tapGameScreen(resized, "Attack")) {
                 attacking = true;
-                targetOverlay = new HealthOverlay(this);
+                targets.lock(npc, now);
                 return true;
             }
         }
         return false;
     }
 
+    private boolean refreshTargets(WorldPosition me, long now) {
+        var wm = getWidgetManager();
+        if (wm == null) {
+            return false;
+        }
+
+        var minimap = wm.getMinimap();
+        if (minimap == null) {
+            return false;
+        }
+
+        targets.update(me, minimap.getNPCPositions().asList(), p ->
+                COMBAT_AREA.contains(p) && !p.equals(VOID_KNIGHT_TILE) && !p.equals(SQUIRE_TILE), now);
+        return true;
+    }
+
     private boolean tryInteractWithGate() {
         long now = System.currentTimeMillis();
         if (now - lastGateInteraction < GATE_COOLDOWN_MS) {
@@ -451,30 +472,15 @@ public class PestControl extends Script {
         if (SAFE_COMBAT_AREA.contains(me)) {
             return false;
         }
-        var wm = getWidgetManager();
-        if (wm == null) {
-            return false;
-        }
-        RSObject gate = getObjectManager().getObjects(obj ->
-                        obj != null && obj.getName() != null
-                                && obj.getName().toLowerCase().contains("gate")
-                ).stream()
+        RSObject gate = sceneIndex.getByNameContaining("gate").stream()
                 .filter(obj -> obj.getWorldPosition() != null && me.distanceTo(obj.getWorldPosition()) <= 10)
                 .min(Comparator.comparingDouble(obj -> me.distanceTo(obj.getWorldPosition())))
                 .orElse(null);
         if (gate == null) {
             return false;
         }
-        WorldPosition gatePos = gate.getWorldPosition();
-        Polygon poly = getSceneProjector().getTileCube(gatePos, 75);
-        if (poly == null) {
-            return false;
-        }
-        Polygon click = poly.getResized(0.7);
-        if (click == null || click.getBounds() == null) {
-            return false;
-        }
-        if (!wm.insideGameScreen(click, Collections.emptyList())) {
+        Polygon click = projections.getVisibleTileCube(gate.getWorldPosition(), 75, 0.7);
+        if (click == null) {
             return false;
         }
         if (getFinger().tapGameScreen(click, "Open gate")) {
@@ -486,23 +492,13 @@ public class PestControl extends Script {
 
 
     private boolean tryClickTileThroughGate() {
-        var wm = getWidgetManager();
-        if (wm == null) {
-            return false;
-        }
+        // Fixed tiles, so these only get reprojected when the player or camera moves
         for (WorldPosition tile : GATE_SIDE_TILES) {
             if (!SAFE_COMBAT_AREA.contains(tile)) {
                 continue;
             }
-            Polygon poly = getSceneProjector().getTileCube(tile, 50);
-            if (poly == null) {
-                continue;
-            }
-            Polygon click = poly.getResized(0.35);
-            if (click == null || click.getBounds() == null) {
-                continue;
-            }
-            if (!wm.insideGameScreen(click, Collections.emptyList())) {
+            Polygon click = projections.getVisibleTileCube(tile, 50, 0.35);
+            if (click == null) {
                 continue;
             }
             if (getFinger().tapGameScreen(click, "Walk here")) {
@@ -749,13 +745,7 @@ public class PestControl extends Script {
     }
 
     private boolean sceneIsStable() {
-        WorldPosition now = getWorldPosition();
-        if (!Objects.equals(now, lastStablePos)) {
-            lastStablePos = now;
-            lastStableTime = System.currentTimeMillis();
-            return false;
-        }
-        return System.currentTimeMillis() - lastStableTime >= getSceneStableTime();
+        return motion.isStationaryFor(getSceneStableTime());
     }
 
     private void trackDeath() {
@@ -770,7 +760,7 @@ public class PestControl extends Script {
             }
             if (deathFlag && lastHp == 0 && hp > 0) {
                 attacking = false;
-                targetOverlay = null;
+                targets.drop();
                 deathFlag = false;
                 recoveringToCombat = false;
                 recoverTarget = null;
@@ -799,6 +789,10 @@ public class PestControl extends Script {
         c.drawText(title, x - 1, y + 24, 0xFFFFFFFF, titleFont);
     }
 
+    public void onStop() {
+        Telemetry.sessionEnd(SCRIPT_NAME);
+    }
+
     @Override
     public void onPaint(Canvas c) {
         long elapsed = System.currentTimeMillis() - startTime;
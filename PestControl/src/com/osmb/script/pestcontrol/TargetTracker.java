@@ -0,0 +1,294 @@
+package com.osmb.script.pestcontrol;
+
+import com.osmb.api.location.position.types.WorldPosition;
+import com.sainty.common.LatencyHistogram;
+import com.sainty.common.TelemetrySource;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.function.Predicate;
+
+/**
+ * Minimap NPC dots followed from one read to the next, kept in a queue ordered by how soon each can be reached,
+ * plus a lock on the one being attacked.
+ * <p>
+ * Each read, dots that haven't moved keep their track untouched. A track whose dot moved follows it to the
+ * nearest unclaimed dot within {@value #MATCH_RADIUS} tiles (the locked target claims first) and is the only
+ * thing re-queued. Everything is re-scored only when the player moves. Also keeps the kill-to-kill times and
+ * the script's CPU time per game for telemetry. A fight only counts as a kill once it is confirmed: the health
+ * bar read 0, or the target's dot left the minimap within {@value #KILL_CONFIRM_MS} ms of the fight ending.
+ */
+class TargetTracker implements TelemetrySource {
+    private static final long MS_PER_TILE = 600;
+    private static final int MATCH_RADIUS = 2;
+    // Tapped but no health bar yet: the player is still stepping in
+    private static final long LOCK_GRACE_MS = 1800;
+    // Death animation plus despawn; a dot still there after this walked away or is fighting someone else
+    private static final long KILL_CONFIRM_MS = 3000;
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+    private static final Comparator<Track> SOONEST = Comparator
+            .comparingLong((Track t) -> t.reachMs)
+            .thenComparingDouble(t -> t.distance)
+            .thenComparingInt(t -> t.id);
+
+    private static final class Track {
+        final int id;
+        WorldPosition position;
+        double distance;
+        long reachMs;
+
+        Track(int id, WorldPosition position) {
+            this.id = id;
+            this.position = position;
+        }
+    }
+
+    private final Map<WorldPosition, Track> byTile = new HashMap<>();
+    private final TreeSet<Track> queue = new TreeSet<>(SOONEST);
+    private int nextId;
+    private WorldPosition lastMe;
+
+    private Track locked;
+    private long lockedAt;
+    private boolean engaged;
+    private Integer lastHitpoints;
+    private Track fought;
+    private long foughtUntil;
+
+    private final LatencyHistogram killIntervals = new LatencyHistogram();
+    private final LatencyHistogram gameCpu = new LatencyHistogram();
+    private long lastKillAt;
+    private long kills;
+    private long gameCpuNanos;
+
+    /**
+     * Brings the tracks up to date with this read of the minimap.
+     */
+    void update(WorldPosition me, List<WorldPosition> npcs, Predicate<WorldPosition> eligible, long now) {
+        if (me == null) {
+            return;
+        }
+        if (fought != null && now - foughtUntil > KILL_CONFIRM_MS) {
+            fought = null;
+        }
+        List<WorldPosition> unclaimed = new ArrayList<>();
+        Map<WorldPosition, Track> kept = new HashMap<>();
+        if (npcs != null) {
+            for (WorldPosition npc : npcs) {
+                if (npc == null || kept.containsKey(npc) || !eligible.test(npc)) {
+                    continue;
+                }
+                Track still = byTile.remove(npc);
+                if (still != null) {
+                    kept.put(npc, still);
+                } else if (!unclaimed.contains(npc)) {
+                    unclaimed.add(npc);
+                }
+            }
+        }
+
+        // What's left in byTile moved or vanished; the locked target gets first pick of the moved dots
+        List<Track> moved = new ArrayList<>(byTile.values());
+        if (locked != null && moved.remove(locked)) {
+            moved.add(0, locked);
+        }
+        boolean rescoreAll = !me.equals(lastMe);
+        for (Track track : moved) {
+            WorldPosition next = closest(track.position, unclaimed);
+            if (!rescoreAll) {
+                queue.remove(track);
+            }
+            if (next == null) {
+                if (track == locked) {
+                    locked = null;
+                }
+                if (track == fought) {
+                    countKill(foughtUntil);
+                    fought = null;
+                }
+                continue;
+            }
+            unclaimed.remove(next);
+            track.position = next;
+            kept.put(next, track);
+            if (!rescoreAll) {
+                score(track, me);
+                queue.add(track);
+            }
+        }
+        for (WorldPosition npc : unclaimed) {
+            Track track = new Track(nextId++, npc);
+            kept.put(npc, track);
+            if (!rescoreAll) {
+                score(track, me);
+                queue.add(track);
+            }
+        }
+
+        byTile.clear();
+        byTile.putAll(kept);
+        if (rescoreAll) {
+            queue.clear();
+            for (Track track : byTile.values()) {
+                score(track, me);
+                queue.add(track);
+            }
+            lastMe = me;
+        }
+    }
+
+    /**
+     * Up to {@code limit} targets, soonest reached first.
+     */
+    List<WorldPosition> next(int limit) {
+        List<WorldPosition> result = new ArrayList<>(Math.min(limit, queue.size()));
+        Iterator<Track> it = queue.iterator();
+        while (it.hasNext() && result.size() < limit) {
+            result.add(it.next().position);
+        }
+        return result;
+    }
+
+    void lock(WorldPosition target, long now) {
+        locked = byTile.get(target);
+        lockedAt = now;
+        engaged = false;
+    }
+
+    WorldPosition getLocked() {
+        return locked != null ? locked.position : null;
+    }
+
+    /**
+     * The target's health bar is up; {@code hitpoints} is what it reads, or null if it couldn't be read.
+     */
+    void markEngaged(Integer hitpoints) {
+        engaged = true;
+        if (hitpoints != null) {
+            lastHitpoints = hitpoints;
+        }
+    }
+
+    /**
+     * True while the target was tapped recently, hasn't shown a health bar yet, and is still on the minimap.
+     */
+    boolean isLockPending(long now) {
+        return locked != null && !engaged && now - lockedAt < LOCK_GRACE_MS;
+    }
+
+    /**
+     * Lets go of the target after its health bar went away. It's counted as a kill if the bar last read 0,
+     * otherwise once its dot leaves the minimap shortly after.
+     */
+    void release(long now) {
+        if (engaged) {
+            Integer hitpoints = lastHitpoints;
+            if ((hitpoints != null && hitpoints == 0) || locked == null) {
+                // Bar read 0, or the dot is already gone
+                countKill(now);
+            } else {
+                fought = locked;
+                foughtUntil = now;
+            }
+        }
+        drop();
+    }
+
+    /**
+     * Lets go of the target without counting it (left the combat area, died).
+     */
+    void drop() {
+        locked = null;
+        engaged = false;
+        lastHitpoints = null;
+    }
+
+    /**
+     * Adds the CPU time since {@code cpuStart}, taken from {@link #cpuNanos()}; skipped if the JVM can't measure it.
+     */
+    void recordWork(long cpuStart) {
+        if (cpuStart < 0) {
+            return;
+        }
+        long end = cpuNanos();
+        if (end >= cpuStart) {
+            gameCpuNanos += end - cpuStart;
+        }
+    }
+
+    void endGame() {
+        if (gameCpuNanos > 0) {
+            gameCpu.record(gameCpuNanos / 1_000_000);
+        }
+        gameCpuNanos = 0;
+        lastKillAt = 0;
+        byTile.clear();
+        queue.clear();
+        lastMe = null;
+        fought = null;
+        drop();
+    }
+
+    /**
+     * CPU time of the calling thread, or -1 where the JVM can't measure it.
+     */
+    static long cpuNanos() {
+        return THREADS.isCurrentThreadCpuTimeSupported() ? THREADS.getCurrentThreadCpuTime() : -1;
+    }
+
+    @Override
+    public void drainTo(Sink sink) {
+        if (kills > 0) {
+            sink.count("pc_kills", kills);
+            kills = 0;
+        }
+        if (killIntervals.getCount() > 0) {
+            sink.gauge("pc_kill_interval_p50_ms", killIntervals.getPercentile(50));
+            sink.gauge("pc_kill_interval_p90_ms", killIntervals.getPercentile(90));
+            killIntervals.reset();
+        }
+        if (gameCpu.getCount() > 0) {
+            sink.gauge("pc_game_cpu_p50_ms", gameCpu.getPercentile(50));
+            sink.count("pc_games_measured", gameCpu.getCount());
+            gameCpu.reset();
+        }
+    }
+
+    private void countKill(long at) {
+        kills++;
+        if (lastKillAt > 0) {
+            killIntervals.record(at - lastKillAt);
+        }
+        lastKillAt = at;
+    }
+
+    private static WorldPosition closest(WorldPosition from, List<WorldPosition> candidates) {
+        WorldPosition best = null;
+        int bestSteps = MATCH_RADIUS + 1;
+        for (WorldPosition candidate : candidates) {
+            int steps = Math.max(Math.abs(candidate.getX() - from.getX()), Math.abs(candidate.getY() - from.getY()));
+            if (steps < bestSteps && candidate.getPlane() == from.getPlane()) {
+                best = candidate;
+                bestSteps = steps;
+            }
+        }
+        return best;
+    }
+
+    // Melee range is adjacent; an NPC that is also walking over meets the player halfway
+    private void score(Track track, WorldPosition me) {
+        double previous = track.distance;
+        track.distance = me.distanceTo(track.position);
+        long tiles = Math.max(0, (long) Math.ceil(track.distance) - 1);
+        boolean closing = previous > 0 && track.distance < previous;
+        track.reachMs = closing ? tiles * MS_PER_TILE / 2 : tiles * MS_PER_TILE;
+    }
+}
@@ -11,6 +11,8 @@ import com.osmb.api.ui.component.tabs.SettingsTabComponent;
 import com.osmb.api.utils.RandomUtils;
 import com.osmb.api.visual.drawing.Canvas;
 import com.osmb.api.walker.WalkConfig;
+import com.sainty.common.PollTimer;
+import com.sainty.common.RouteCache;
 import com.sainty.common.Telemetry;
 import com.sainty.common.VersionChecker;
 
@@ -71,6 +73,8 @@ public class CaveNightshadeGatherer extends Script {
     }
 
     private State state = State.ENTER_CAVE;
+    private final PollTimer<State> pollTimer = new PollTimer<>(State.class);
+    private final RouteCache routes = new RouteCache(this, SCRIPT_NAME);
     private boolean headingToBank = false;
     private boolean gateLocked = false;
     private long gateLockUntil = 0;
@@ -96,6 +100,8 @@ public class CaveNightshadeGatherer extends Script {
         scriptStartTime = System.currentTimeMillis();
 
         Telemetry.sessionStart(SCRIPT_NAME);
+        Telemetry.register(SCRIPT_NAME, pollTimer);
+        Telemetry.register(SCRIPT_NAME, routes);
         ensureMaxZoom();
 
         hopFlag = false;
@@ -119,6 +125,7 @@ public class CaveNightshadeGatherer extends Script {
             return 0;
         }
 
+        long pollStart = pollTimer.start();
         headingToBank = ctx.headingToBank;
         state = decideState(ctx);
 
@@ -127,7 +134,10 @@ public class CaveNightshadeGatherer extends Script {
             return 0;
         }
 
-        return executeState(ctx);
+        State executed = state;
+        int delay = executeState(ctx);
+        pollTimer.record(executed, pollStart);
+        return delay;
     }
 
     private void handleHousekeeping() {
@@ -468,6 +478,7 @@ public class CaveNightshadeGatherer extends Script {
         }
 
         getWidgetManager().getBank().close();
+        routes.endLoop();
 
         gateLocked = false;
         gateLockUntil = 0;
@@ -475,10 +486,7 @@ public class CaveNightshadeGatherer extends Script {
     }
 
     private void walkTo(WorldPosition pos) {
-        WalkConfig cfg = new WalkConfig.Builder()
-                .setWalkMethods(false, true)
-                .build();
-        getWalker().walkTo(pos, cfg);
+        routes.walkTo(pos, new WalkConfig.Builder().setWalkMethods(false, true), null);
     }
 
     private void drawHeader(Canvas c, String author, String title, int x, int y) {
@@ -498,6 +506,10 @@ public class CaveNightshadeGatherer extends Script {
         return String.format("%02d:%02d:%02d", h, m % 60, s % 60);
     }
 
+    public void onStop() {
+        Telemetry.sessionEnd(SCRIPT_NAME);
+    }
+
     @Override
     public void onPaint(Canvas c) {
         long elapsed = System.currentTimeMillis() - startTime;
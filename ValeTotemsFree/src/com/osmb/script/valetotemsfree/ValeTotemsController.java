@@ -13,6 +13,7 @@ import com.osmb.api.visual.drawing.Canvas;
 import com.osmb.script.valetotemsfree.handler.*;
 import com.osmb.script.valetotemsfree.ui.SettingsUI;
 import com.osmb.script.valetotemsfree.util.AreaDefinitions;
+import com.sainty.common.RouteCache;
 
 import java.awt.Color;
 import java.util.ArrayList;
@@ -79,8 +80,7 @@ public class ValeTotemsController {
     private List<TaskType> taskSequence = new ArrayList<>();
     private int currentTaskIndex = 0;
     private TaskType currentTask = TaskType.IDLE;
-    private long lastPositionChangeTime = 0;
-    private WorldPosition lastStuckPosition = null;
+    private long lastEscapeAt = 0;
     private TaskType lastTask = null;
     private long lastTaskChangeTime = System.currentTimeMillis();
 
@@ -226,23 +226,11 @@ public class ValeTotemsController {
     public int execute() {
         TaskType nextTask;
         checkProgress();
-        if (script.getWorldPosition() == null) {
+        if (context.getMotion().getPosition() == null) {
             return 1000;
         }
 
-        // Check if stuck in problematic area and update position tracking
-        WorldPosition currentPos = script.getWorldPosition();
-        if (currentPos != null) {
-            if (AreaDefinitions.PROBLEMATIC_WALK_AREA.contains(currentPos)) {
-                handleStuckInProblematicArea(currentPos);
-            } else {
-                // Reset stuck tracking if we're not in the problematic area
-                if (lastStuckPosition != null && !currentPos.equals(lastStuckPosition)) {
-                    lastStuckPosition = null;
-                    lastPositionChangeTime = System.currentTimeMillis();
-                }
-            }
-        }
+        handleStuckInProblematicArea();
 
         script.pollFramesHuman(() -> true, RandomUtils.gaussianRandom(50, 400, 100, 100), false);
         currentTask = nextTask = getNextTask();
@@ -264,6 +252,9 @@ public class ValeTotemsController {
     }
 
     public void onNewFrame() {
+        context.getChatEvents().onNewFrame();
+        context.getScene().onNewFrame();
+        context.getMotion().onNewFrame();
         if (fletchingXP == null) {
             var xpTrackers = script.getXPTrackers();
             if (xpTrackers != null) {
@@ -430,6 +421,7 @@ public class ValeTotemsController {
     private void updateTripCount(Area area) {
         // Increment trip count when completing route
         if (area.equals(AreaDefinitions.TOTEM_AREA_8)) {
+            context.getRoutes().endLoop();
             if (shouldCollectOfferings) {
                 // Just finished a loop where we collected offerings - reset for next cycle
                 shouldCollectOfferings = false;
@@ -653,21 +645,15 @@ public class ValeTotemsController {
         return String.format("%,d", number);
     }
 
-    private void handleStuckInProblematicArea(WorldPosition currentPos) {
+    private void handleStuckInProblematicArea() {
         // If we've been stuck in the same position for more than 3 seconds, try to escape
-        if (lastStuckPosition != null && lastStuckPosition.equals(currentPos)) {
-            long timeSinceLastChange = System.currentTimeMillis() - lastPositionChangeTime;
-            if (timeSinceLastChange > 3000) {
-                log("Detected stuck in problematic area - attempting to escape");
-                // Walk to a safe position north of the problematic area
-                WorldPosition escapePos = new WorldPosition(1365, 3360, 0);
-                script.getWalker().walkTo((Position) escapePos);
-                lastStuckPosition = null;
-                lastPositionChangeTime = System.currentTimeMillis();
-            }
-        } else {
-            lastStuckPosition = currentPos;
-            lastPositionChangeTime = System.currentTimeMillis();
+        long now = System.currentTimeMillis();
+        if (context.getMotion().isStuckIn(AreaDefinitions.PROBLEMATIC_WALK_AREA, 3000) && now - lastEscapeAt > 3000) {
+            log("Detected stuck in problematic area - attempting to escape");
+            // Walk to a safe position north of the problematic area
+            WorldPosition escapePos = new WorldPosition(1365, 3360, 0);
+            script.getWalker().walkTo((Position) escapePos);
+            lastEscapeAt = System.currentTimeMillis();
         }
     }
 
@@ -681,6 +667,10 @@ public class ValeTotemsController {
         c.drawText(title, x - 1, y + 24, 0xFFFFFFFF, t);
     }
 
+    public RouteCache getRoutes() {
+        return context.getRoutes();
+    }
+
     public int getTotemsCompleted() {
         return totemsCompleted;
     }
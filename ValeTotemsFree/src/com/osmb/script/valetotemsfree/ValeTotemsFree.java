@@ -7,6 +7,8 @@ import com.osmb.api.ui.component.tabs.SettingsTabComponent;
 import com.osmb.api.utils.RandomUtils;
 import com.osmb.api.visual.drawing.Canvas;
 import com.osmb.script.valetotemsfree.ui.SettingsUI;
+import com.sainty.common.ColorMatcher;
+import com.sainty.common.OcrCache;
 import com.sainty.common.Telemetry;
 import com.sainty.common.VersionChecker;
 import javafx.scene.Parent;
@@ -43,8 +45,11 @@ public class ValeTotemsFree
         ensureMaxZoom();
         scriptStartTime = System.currentTimeMillis();
         Telemetry.sessionStart(SCRIPT_NAME);
+        Telemetry.register(SCRIPT_NAME, OcrCache.shared());
 
         controller = new ValeTotemsController(this);
+        ColorMatcher.prepareAll();
+        Telemetry.register(SCRIPT_NAME, controller.getRoutes());
         SettingsUI ui = new SettingsUI(settings -> {
             controller.initialize(settings);
         });
@@ -102,6 +107,10 @@ public class ValeTotemsFree
         }
     }
 
+    public void onStop() {
+        Telemetry.sessionEnd(SCRIPT_NAME);
+    }
+
     public void onPaint(Canvas canvas) {
         if (controller != null) {
             controller.onPaint(canvas);
@@ -9,10 +9,12 @@ import com.osmb.api.scene.RSObject;
 import com.osmb.api.utils.RandomUtils;
 import com.osmb.api.walker.WalkConfig;
 import com.osmb.script.valetotemsfree.util.AreaDefinitions;
+import com.sainty.common.InventoryQuery;
 
 import java.util.Comparator;
 import java.util.HashSet;
 import java.util.Set;
+import java.util.function.BooleanSupplier;
 import java.util.function.Predicate;
 
 public class ValeTotemsBankingHandler {
@@ -38,6 +40,10 @@ public class ValeTotemsBankingHandler {
     private final ValeTotemsContext context;
     private final ValeTotemsFletchingHandler fletchingHandler;
     private int offeringsCount = 0;
+    private InventoryQuery inventory;
+    private int inventoryProductId;
+    private int inventoryLogId;
+    private int inventoryPreMadeId;
 
     public ValeTotemsBankingHandler(ValeTotemsContext context, ValeTotemsFletchingHandler fletchingHandler) {
         this.context = context;
@@ -124,8 +130,9 @@ public class ValeTotemsBankingHandler {
         }
 
         if (area.equals(AreaDefinitions.BANK_AREA)) {
-            int bows = getItemCount(context.getSelectedProductId());
-            int logs = getItemCount(context.getSelectedLogId());
+            refreshInventory();
+            int bows = inventory.amount(context.getSelectedProductId());
+            int logs = inventory.amount(context.getSelectedLogId());
             boolean basketOk = !context.isUseLogBasket() || context.isBasketRefilledThisLoop();
 
             if (bows >= REQUIRED_BOWS_AUBURNVALE && logs >= REQUIRED_LOGS_AUBURNVALE && basketOk) {
@@ -145,8 +152,9 @@ public class ValeTotemsBankingHandler {
             if (context.isUseLogBasket()) {
                 return true; // Skip Buffalo if basket enabled
             }
-            int bows = getItemCount(context.getSelectedProductId());
-            int logs = getItemCount(context.getSelectedLogId());
+            refreshInventory();
+            int bows = inventory.amount(context.getSelectedProductId());
+            int logs = inventory.amount(context.getSelectedLogId());
 
             // If we already have enough bows AND minimum logs, skip banking
             if (bows >= REQUIRED_BOWS_BUFFALO && logs >= REQUIRED_LOGS_AUBURNVALE) {
@@ -225,40 +233,41 @@ public class ValeTotemsBankingHandler {
                         area.contains(rSObject.getWorldPosition());
 
         WalkConfig.Builder builder = new WalkConfig.Builder().tileRandomisationRadius(TILE_RANDOMISATION_RADIUS_MEDIUM);
-        builder.breakCondition(() -> {
+        BooleanSupplier nearBank = () -> {
             RSObject obj = context.getScript().getObjectManager().getObjects(predicate).stream()
                     .min(Comparator.comparingDouble(rSObject ->
                             rSObject.getWorldPosition().distanceTo((Position) context.getScript().getWorldPosition())))
                     .orElse(null);
             return isInteractable(obj) && obj.distance(context.getScript().getWorldPosition()) < BANK_APPROACH_DISTANCE;
-        });
-        context.getScript().getWalker().walkTo((Position) area.getRandomPosition(), builder.build());
+        };
+        context.getRoutes().walkTo(area.getRandomPosition(), builder, nearBank);
         return false;
     }
 
     private void depositUnwantedItems(Area area) {
         // Deposit items individually to ensure we never deposit the knife or basket
         boolean hadKnifeBefore = hasKnife();
-        int offeringCount = getItemCount(OFFERING_ID);
+        refreshInventory();
+        int offeringCount = inventory.amount(OFFERING_ID);
         if (offeringCount > 0) {
             context.getScript().getWidgetManager().getBank().deposit(OFFERING_ID, offeringCount);
         }
 
         if (context.isUsePreMadeItems()) {
             // Premade mode: deposit all logs and premade items
-            int logCount = getItemCount(context.getSelectedLogId());
+            int logCount = inventory.amount(context.getSelectedLogId());
             if (logCount > 0) {
                 context.getScript().getWidgetManager().getBank().deposit(context.getSelectedLogId(), logCount);
             }
             if (context.getSelectedPreMadeItemId() > 0) {
-                int premadeCount = getItemCount(context.getSelectedPreMadeItemId());
+                int premadeCount = inventory.amount(context.getSelectedPreMadeItemId());
                 if (premadeCount > 0) {
                     context.getScript().getWidgetManager().getBank().deposit(context.getSelectedPreMadeItemId(), premadeCount);
                 }
             }
         } else {
             // Fletching mode: only deposit excess products, never deposit logs
-            int productCount = getItemCount(context.getSelectedProductId());
+            int productCount = inventory.amount(context.getSelectedProductId());
             int maxProducts = REQUIRED_BOWS_AUBURNVALE; // Default to Auburnvale requirement
             if (area.equals(AreaDefinitions.BUFFALO_AREA)) {
                 maxProducts = REQUIRED_BOWS_BUFFALO;
@@ -357,7 +366,7 @@ public class ValeTotemsBankingHandler {
 
         // Withdraw premade items if needed
         if (context.getSelectedPreMadeItemId() > 0 && getItemCount(context.getSelectedPreMadeItemId()) < REQUIRED_PREMADE_ITEMS) {
-            int needed = REQUIRED_PREMADE_ITEMS - getItemCount(context.getSelectedPreMadeItemId());
+            int needed = REQUIRED_PREMADE_ITEMS - inventory.amount(context.getSelectedPreMadeItemId());
             if (!withdrawItem(context.getSelectedPreMadeItemId(), needed)) {
                 return true;
             }
@@ -365,8 +374,9 @@ public class ValeTotemsBankingHandler {
         }
 
         // Verify we have everything needed
-        if (getItemCount(context.getSelectedLogId()) >= REQUIRED_LOGS_PREMADE &&
-                getItemCount(context.getSelectedPreMadeItemId()) >= REQUIRED_PREMADE_ITEMS) {
+        refreshInventory();
+        if (inventory.amount(context.getSelectedLogId()) >= REQUIRED_LOGS_PREMADE &&
+                inventory.amount(context.getSelectedPreMadeItemId()) >= REQUIRED_PREMADE_ITEMS) {
             return true;
         }
         return false;
@@ -408,8 +418,9 @@ public class ValeTotemsBankingHandler {
             context.getScript().pollFramesHuman(() -> true, RandomUtils.gaussianRandom(50, 300, 80, 80), false);
         }
 
-        int currentBows = getItemCount(context.getSelectedProductId());
-        int currentLogs = getItemCount(context.getSelectedLogId());
+        refreshInventory();
+        int currentBows = inventory.amount(context.getSelectedProductId());
+        int currentLogs = inventory.amount(context.getSelectedLogId());
         log("handleAuburnvaleBanking: Starting with " + currentBows + " bows, " + currentLogs + " logs");
 
         boolean hasEnoughBowsToLeave = currentBows >= REQUIRED_BOWS_AUBURNVALE;
@@ -464,8 +475,9 @@ public class ValeTotemsBankingHandler {
                 return false;
             }
 
-            currentBows = getItemCount(context.getSelectedProductId());
-            currentLogs = getItemCount(context.getSelectedLogId());
+            refreshInventory();
+            currentBows = inventory.amount(context.getSelectedProductId());
+            currentLogs = inventory.amount(context.getSelectedLogId());
             log("After fletching: have " + currentBows + " bows, " + currentLogs + " logs (started with " + bowsBeforeFletching + ")");
 
             if (currentBows == bowsBeforeFletching) {
@@ -535,8 +547,9 @@ public class ValeTotemsBankingHandler {
             }
         }
 
-        currentBows = getItemCount(context.getSelectedProductId());
-        currentLogs = getItemCount(context.getSelectedLogId());
+        refreshInventory();
+        currentBows = inventory.amount(context.getSelectedProductId());
+        currentLogs = inventory.amount(context.getSelectedLogId());
         boolean knifePresent = hasKnife();
         boolean basketReady = !context.isUseLogBasket() || context.isBasketRefilledThisLoop();
 
@@ -550,8 +563,9 @@ public class ValeTotemsBankingHandler {
             return true;
         }
 
-        int currentBows = getItemCount(context.getSelectedProductId());
-        int currentLogs = getItemCount(context.getSelectedLogId());
+        refreshInventory();
+        int currentBows = inventory.amount(context.getSelectedProductId());
+        int currentLogs = inventory.amount(context.getSelectedLogId());
 
         // If we already have enough bows AND minimum logs, we're ready
         if (currentBows >= REQUIRED_BOWS_BUFFALO && currentLogs >= REQUIRED_LOGS_AUBURNVALE) {
@@ -599,8 +613,9 @@ public class ValeTotemsBankingHandler {
         if (!fletchingHandler.performFletching(REQUIRED_BOWS_BUFFALO)) {
             return false;
         }
-        currentBows = getItemCount(context.getSelectedProductId());
-        currentLogs = getItemCount(context.getSelectedLogId());
+        refreshInventory();
+        currentBows = inventory.amount(context.getSelectedProductId());
+        currentLogs = inventory.amount(context.getSelectedLogId());
 
         if (currentBows < REQUIRED_BOWS_BUFFALO) {
             log("Fletching incomplete at Buffalo - only have " + currentBows + " bows");
@@ -633,8 +648,22 @@ public class ValeTotemsBankingHandler {
 
     // Helper methods
     private int getItemCount(int itemId) {
-        ItemGroupResult itemGroupResult = context.getScript().getWidgetManager().getInventory().search(Set.of(itemId));
-        return itemGroupResult != null ? itemGroupResult.getAmount(new int[]{itemId}) : 0;
+        refreshInventory();
+        return inventory.amount(itemId);
+    }
+
+    // One search covers every item this handler counts; rebuilt if the selected items change
+    private void refreshInventory() {
+        int productId = context.getSelectedProductId();
+        int logId = context.getSelectedLogId();
+        int preMadeId = context.getSelectedPreMadeItemId();
+        if (inventory == null || productId != inventoryProductId || logId != inventoryLogId || preMadeId != inventoryPreMadeId) {
+            inventory = new InventoryQuery(productId, logId, preMadeId, OFFERING_ID);
+            inventoryProductId = productId;
+            inventoryLogId = logId;
+            inventoryPreMadeId = preMadeId;
+        }
+        inventory.refresh(context.getScript());
     }
 
     private boolean hasKnife() {
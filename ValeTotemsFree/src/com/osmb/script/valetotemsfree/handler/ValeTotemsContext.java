@@ -2,10 +2,18 @@ package com.osmb.script.valetotemsfree.handler;
 
 import com.osmb.api.script.Script;
 import com.osmb.api.trackers.experience.XPTracker;
+import com.sainty.common.ChatboxEventBus;
+import com.sainty.common.MotionTracker;
+import com.sainty.common.RouteCache;
+import com.sainty.common.SceneIndex;
 
 
 public class ValeTotemsContext {
     private final Script script;
+    private final ChatboxEventBus chatEvents;
+    private final SceneIndex scene;
+    private final MotionTracker motion;
+    private final RouteCache routes;
 
     // Configuration
     private int selectedLogId;
@@ -24,6 +32,10 @@ public class ValeTotemsContext {
 
     public ValeTotemsContext(Script script) {
         this.script = script;
+        this.chatEvents = new ChatboxEventBus(script);
+        this.scene = new SceneIndex(script);
+        this.motion = new MotionTracker(script);
+        this.routes = new RouteCache(script, "ValeTotemsFree");
     }
 
     // Getters and setters
@@ -31,6 +43,22 @@ public class ValeTotemsContext {
         return script;
     }
 
+    public ChatboxEventBus getChatEvents() {
+        return chatEvents;
+    }
+
+    public SceneIndex getScene() {
+        return scene;
+    }
+
+    public MotionTracker getMotion() {
+        return motion;
+    }
+
+    public RouteCache getRoutes() {
+        return routes;
+    }
+
     public int getSelectedLogId() {
         return selectedLogId;
     }
@@ -1,17 +1,23 @@
 package com.osmb.script.valetotemsfree.handler;
 
+import com.osmb.api.location.area.Area;
+import com.osmb.api.location.position.types.WorldPosition;
+import com.osmb.api.shape.Polygon;
 import com.osmb.api.shape.Rectangle;
 import com.osmb.api.shape.Shape;
 import com.osmb.api.utils.RandomUtils;
-import com.osmb.api.visual.SearchablePixel;
-import com.osmb.api.visual.color.ColorModel;
-import com.osmb.api.visual.color.tolerance.ToleranceComparator;
-import com.osmb.api.visual.color.tolerance.impl.SingleThresholdComparator;
+import com.osmb.api.utils.UIResultList;
 import com.osmb.api.visual.ocr.fonts.Font;
+import com.sainty.common.ColorMatcher;
+import com.sainty.common.LabelTracker;
+import com.sainty.common.OcrCache;
+import com.sainty.common.PixelClusterer;
+import com.sainty.common.PixelCounter;
 
 import java.awt.Color;
 import java.awt.Point;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
@@ -25,12 +31,32 @@ public class ValeTotemsSpiritDetector {
     private static final int MIN_SPIRIT_TEXT_LENGTH = 4;
     private static final int ESTIMATED_FONT_HEIGHT = 6;
     private static final int SPIRIT_TEXT_COLOR = -16385800;
+    // Label search band above each spirit's tile cube
+    private static final int SPIRIT_CUBE_HEIGHT = 120;
+    private static final int LABEL_BAND_HEIGHT = 45;
+    private static final int LABEL_BAND_OVERLAP = 15;
+    private static final int LABEL_BAND_HALF_WIDTH = 70;
+    // Label tracking between scans
+    private static final int TRACK_GATE = 40;
+    private static final int TRACK_MOVE_TOLERANCE = 6;
+    private static final int TRACK_MAX_MISSES = 2;
+    private static final int TRACK_CONFIRM_PIXELS = 10;
+    private static final int TRACK_MAX_CONFIRMS = 3;
+    private static final int TRACK_REREAD_SCANS = 8;
+    // Label-region scans in a row that found no new spirit before one full-screen scan looks further out
+    private static final int FULL_SCREEN_AFTER_STALLED_SCANS = 5;
+    private static final ColorMatcher SPIRIT_TEXT_MATCHER = ColorMatcher.rgb(COLOR_TOLERANCE_HIGH, SPIRIT_TEXT_COLOR);
+    private static final ColorMatcher SPIRIT_SELECTED_MATCHER = ColorMatcher.rgb(COLOR_TOLERANCE_MEDIUM, new Color(180, 50, 50).getRGB());
     private static final Map<String, Integer> SPIRIT_OPTION_MAP = Map.of("buffalo", 1, "jaguar", 2, "eagle", 3, "snake", 4, "scorpion", 5);
     private static final Set<String> VALID_SPIRITS = Set.of("jaguar", "buffalo", "snake", "eagle", "scorpion");
 
     private final ValeTotemsContext context;
     private final Set<String> detectedSpirits = new LinkedHashSet<>();
+    private final LabelTracker labelTracker = new LabelTracker(TRACK_GATE, TRACK_MOVE_TOLERANCE, TRACK_MAX_MISSES,
+            TRACK_MAX_CONFIRMS, TRACK_REREAD_SCANS);
     private boolean spiritsReadyLogged = false;
+    private int stalledScans;
+    private Area scanArea;
 
     public ValeTotemsSpiritDetector(ValeTotemsContext context) {
         this.context = context;
@@ -40,29 +66,36 @@ public class ValeTotemsSpiritDetector {
         return detectedSpirits;
     }
 
+    /**
+     * Limits label scans to NPCs inside this area, falling back to the whole screen when none are found there.
+     */
+    public void setScanArea(Area area) {
+        this.scanArea = area;
+    }
+
     public void clearDetectedSpirits() {
         detectedSpirits.clear();
+        labelTracker.clear();
         spiritsReadyLogged = false;
+        stalledScans = 0;
     }
 
     public void scanForSpirits() {
         if (detectedSpirits.size() >= 3) return;
 
+        // Tracked labels are only read when new, moved or due a re-read; more than 3 keeps the most consistently seen
         List<String> detected = detectSpirits();
-        if (detected.size() > 3) {
-            // If we somehow detect more than 3, clear and rescan once
-            detectedSpirits.clear();
-            spiritsReadyLogged = false;
-            detected = detectSpirits();
-        }
+        boolean found = false;
         for (String spirit : detected) {
             if (detectedSpirits.size() >= 3) {
                 break;
             }
             if (detectedSpirits.add(spirit)) {
+                found = true;
                 log("Spirit detected: " + spirit + " (" + detectedSpirits.size() + "/3)");
             }
         }
+        stalledScans = found ? 0 : stalledScans + 1;
     }
 
     public void handleSpiritDialogue() {
@@ -98,90 +131,152 @@ public class ValeTotemsSpiritDetector {
     }
 
     private List<String> detectSpirits() {
+        // Labels float above the spirits, so look there first and only fall back to the whole screen when nothing
+        // is there, or now and then when the regions stopped turning up new spirits (one may be out of the minimap's
+        // reach). Either way exactly one pass goes through the tracker per scan
+        List<Rectangle> regions = getSpiritLabelRegions();
+        if (!regions.isEmpty() && stalledScans < FULL_SCREEN_AFTER_STALLED_SCANS) {
+            List<Point> pixels = new ArrayList<>();
+            for (Rectangle region : regions) {
+                pixels.addAll(SPIRIT_TEXT_MATCHER.find(context.getScript(), region));
+            }
+            if (!pixels.isEmpty()) {
+                return trackSpirits(pixels);
+            }
+        }
+        stalledScans = 0;
+
         // Close inventory if open so NPCs aren't hidden behind it
         if (context.getScript().getWidgetManager().getInventory() != null && context.getScript().getWidgetManager().getInventory().isVisible()) {
             context.getScript().getWidgetManager().getInventory().close();
             context.getScript().pollFramesHuman(() -> true, RandomUtils.gaussianRandom(50, 300, 80, 80), false);
         }
 
-        LinkedHashSet<String> detected = new LinkedHashSet<>();
-        SearchablePixel searchablePixel = new SearchablePixel(SPIRIT_TEXT_COLOR, (ToleranceComparator) new SingleThresholdComparator(COLOR_TOLERANCE_HIGH), ColorModel.RGB);
-        List<Point> pixels = context.getScript().getPixelAnalyzer().findPixels((Shape) context.getScript().getScreen().getBounds(), new SearchablePixel[]{searchablePixel});
-        if (pixels.isEmpty()) {
-            return new ArrayList<>();
-        }
+        return trackSpirits(SPIRIT_TEXT_MATCHER.find(context.getScript(), context.getScript().getScreen().getBounds()));
+    }
 
+    // Based on estimated font height (results in ~12px)
+    private static int getMergeDistance() {
+        return Math.max(8, ESTIMATED_FONT_HEIGHT * 2);
+    }
+
+    // A band above each NPC the minimap shows inside the totem area, clipped to the screen and merged where they overlap
+    private List<Rectangle> getSpiritLabelRegions() {
+        List<Rectangle> regions = new ArrayList<>();
+        if (scanArea == null) {
+            return regions;
+        }
+        UIResultList<WorldPosition> npcPositions = context.getScript().getWidgetManager().getMinimap().getNPCPositions();
+        if (npcPositions == null || npcPositions.isNotVisible()) {
+            return regions;
+        }
         Rectangle screenBounds = context.getScript().getScreen().getBounds();
-        for (Rectangle rectangle : groupPixelsIntoRectangles(pixels)) {
-            // Calculate OCR bounds with padding
-            int x = Math.max(0, rectangle.x - SPIRIT_TEXT_PADDING);
-            int y = Math.max(0, rectangle.y - SPIRIT_TEXT_PADDING);
-            int width = Math.min(screenBounds.width - x, rectangle.width + (SPIRIT_TEXT_PADDING * 2));
-            int height = Math.min(screenBounds.height - y, rectangle.height + (SPIRIT_TEXT_PADDING * 2));
-
-            if (width <= 0 || height <= 0) {
+        for (WorldPosition position : npcPositions) {
+            if (position == null || !scanArea.contains(position)) {
                 continue;
             }
-
-            Rectangle ocrBounds = new Rectangle(x, y, width, height);
-            String text = context.getScript().getOCR().getText(Font.STANDARD_FONT_BOLD, ocrBounds, new int[]{SPIRIT_TEXT_COLOR});
-
-            if (text == null || text.trim().isEmpty()) {
+            Polygon cube = context.getScript().getSceneProjector().getTileCube(position, SPIRIT_CUBE_HEIGHT);
+            if (cube == null) {
                 continue;
             }
+            Rectangle cubeBounds = cube.getBounds();
+            if (cubeBounds == null) {
+                continue;
+            }
+            int centerX = cubeBounds.x + cubeBounds.width / 2;
+            int x = Math.max(0, centerX - LABEL_BAND_HALF_WIDTH);
+            int y = Math.max(0, cubeBounds.y - LABEL_BAND_HEIGHT);
+            int right = Math.min(screenBounds.width, centerX + LABEL_BAND_HALF_WIDTH);
+            int bottom = Math.min(screenBounds.height, cubeBounds.y + LABEL_BAND_OVERLAP);
+            if (right <= x || bottom <= y) {
+                continue;
+            }
+            Rectangle band = new Rectangle(x, y, right - x, bottom - y);
+            for (int i = 0; i < regions.size(); i++) {
+                Rectangle other = regions.get(i);
+                if (band.x < other.x + other.width && other.x < band.x + band.width
+                        && band.y < other.y + other.height && other.y < band.y + band.height) {
+                    band = band.union(other);
+                    regions.remove(i);
+                    i = -1;
+                }
+            }
+            regions.add(band);
+        }
+        return regions;
+    }
 
-            String textLower = text.toLowerCase().trim();
+    private List<String> trackSpirits(List<Point> pixels) {
+        // Updated even when nothing was found, so the tracks that weren't seen count the miss
+        List<LabelTracker.Track> matched = labelTracker.update(PixelClusterer.cluster(pixels, getMergeDistance()));
 
-            // Validate text looks like a spirit name (must contain "spirit" and be long enough)
-            if (!textLower.contains("spirit") || textLower.length() < MIN_SPIRIT_TEXT_LENGTH) {
-                continue;
+        // Only new, moved or due labels go to OCR
+        for (LabelTracker.Track track : matched) {
+            if (labelTracker.needsRead(track)) {
+                Rectangle ocrBounds = getOcrBounds(track.getX(), track.getY(), track.getWidth(), track.getHeight());
+                labelTracker.setLabel(track, ocrBounds == null ? null : readSpiritName(ocrBounds));
             }
+        }
 
-            // Check for valid spirit names
-            for (String validSpirit : VALID_SPIRITS) {
-                if (textLower.contains(validSpirit)) {
-                    detected.add(validSpirit);
-                    break; // Only one spirit per text block
+        // Labels this scan missed stay alive while their color is still where they were heading
+        List<LabelTracker.Track> live = new ArrayList<>();
+        for (LabelTracker.Track track : labelTracker.getTracks()) {
+            if (track.getLabel() == null) {
+                continue;
+            }
+            if (!track.isMatched()) {
+                Rectangle predicted = getOcrBounds(track.getPredictedX(), track.getPredictedY(), track.getWidth(), track.getHeight());
+                if (predicted == null
+                        || !PixelCounter.atLeast(context.getScript(), predicted, SPIRIT_TEXT_MATCHER, TRACK_CONFIRM_PIXELS)
+                        || !labelTracker.confirm(track)) {
+                    continue;
                 }
             }
+            live.add(track);
+        }
+        live.sort(Comparator.comparingInt(LabelTracker.Track::getHits).reversed());
+
+        LinkedHashSet<String> detected = new LinkedHashSet<>();
+        for (LabelTracker.Track track : live) {
+            detected.add(track.getLabel());
         }
         return new ArrayList<>(detected);
     }
 
-    private List<Rectangle> groupPixelsIntoRectangles(List<Point> pixels) {
-        if (pixels.isEmpty()) {
-            return new ArrayList<>();
+    // Label box with padding, clipped to the screen
+    private Rectangle getOcrBounds(int boxX, int boxY, int boxWidth, int boxHeight) {
+        Rectangle screenBounds = context.getScript().getScreen().getBounds();
+        int x = Math.max(0, boxX - SPIRIT_TEXT_PADDING);
+        int y = Math.max(0, boxY - SPIRIT_TEXT_PADDING);
+        int width = Math.min(screenBounds.width - x, boxWidth + (SPIRIT_TEXT_PADDING * 2));
+        int height = Math.min(screenBounds.height - y, boxHeight + (SPIRIT_TEXT_PADDING * 2));
+        if (width <= 0 || height <= 0) {
+            return null;
         }
+        return new Rectangle(x, y, width, height);
+    }
 
-        List<Rectangle> rectangles = new ArrayList<>();
-        // Calculate merge distance based on estimated font height (results in ~12px)
-        int mergeDistance = Math.max(8, ESTIMATED_FONT_HEIGHT * 2);
-
-        // Process pixels and merge nearby ones into rectangles
-        for (Point point : pixels) {
-            Rectangle newRect = new Rectangle(point.x, point.y, 1, 1);
-            boolean merged = false;
+    private String readSpiritName(Rectangle ocrBounds) {
+        String text = OcrCache.shared().getText(context.getScript(), Font.STANDARD_FONT_BOLD, ocrBounds, SPIRIT_TEXT_COLOR);
 
-            // Try to merge
-            for (int i = 0; i < rectangles.size(); i++) {
-                Rectangle existing = rectangles.get(i);
+        if (text == null || text.trim().isEmpty()) {
+            return null;
+        }
 
-                int dx = Math.max(existing.x - point.x, point.x - (existing.x + existing.width));
-                int dy = Math.max(existing.y - point.y, point.y - (existing.y + existing.height));
+        String textLower = text.toLowerCase().trim();
 
-                if (dx <= mergeDistance && dy <= mergeDistance) {
-                    rectangles.set(i, existing.union(newRect));
-                    merged = true;
-                    break;
-                }
-            }
+        // Validate text looks like a spirit name (must contain "spirit" and be long enough)
+        if (!textLower.contains("spirit") || textLower.length() < MIN_SPIRIT_TEXT_LENGTH) {
+            return null;
+        }
 
-            if (!merged) {
-                rectangles.add(newRect);
+        // Check for valid spirit names
+        for (String validSpirit : VALID_SPIRITS) {
+            if (textLower.contains(validSpirit)) {
+                return validSpirit; // Only one spirit per text block
             }
         }
-
-        return rectangles;
+        return null;
     }
 
     private Rectangle getSpiritOptionBounds(int optionIndex) {
@@ -206,8 +301,7 @@ public class ValeTotemsSpiritDetector {
     }
 
     private boolean isSpiritOptionSelected(Rectangle rectangle) {
-        SearchablePixel searchablePixel = new SearchablePixel(new Color(180, 50, 50).getRGB(), (ToleranceComparator) new SingleThresholdComparator(COLOR_TOLERANCE_MEDIUM), ColorModel.RGB);
-        return context.getScript().getPixelAnalyzer().findPixels((Shape) rectangle, new SearchablePixel[]{searchablePixel}).size() > PIXEL_COUNT_THRESHOLD;
+        return PixelCounter.atLeast(context.getScript(), rectangle, SPIRIT_SELECTED_MATCHER, PIXEL_COUNT_THRESHOLD + 1);
     }
 
     private void log(String message) {
@@ -11,13 +11,13 @@ import com.osmb.api.shape.Polygon;
 import com.osmb.api.shape.Shape;
 import com.osmb.api.ui.chatbox.dialogue.DialogueType;
 import com.osmb.api.utils.RandomUtils;
-import com.osmb.api.utils.UIResultList;
 import com.osmb.api.walker.WalkConfig;
 import com.osmb.script.valetotemsfree.util.AreaDefinitions;
 
 import java.util.Comparator;
 import java.util.List;
 import java.util.Set;
+import java.util.function.BooleanSupplier;
 import java.util.function.Consumer;
 
 public class ValeTotemsTotemHandler {
@@ -27,6 +27,7 @@ public class ValeTotemsTotemHandler {
     private static final int MIN_PRODUCT_COUNT = 4;
     private static final int MIN_PREMADE_COUNT = 4;
     private static final int MIN_LOG_COUNT = 1;
+    private static final String FINAL_DECORATION_MESSAGE = "You add the final decoration";
 
     // Distance thresholds
     private static final double TOTEM_INTERACTION_DISTANCE = 9;
@@ -42,6 +43,7 @@ public class ValeTotemsTotemHandler {
     private Runnable goToClosestBankCallback;
     private Runnable onTotemCompletedCallback;
     private Consumer<Area> onOfferingsCollectedCallback;
+    private boolean finalDecorationAdded = false;
 
     public enum TotemAction {
         NONE, BUILD, CARVE, DECORATE
@@ -50,6 +52,7 @@ public class ValeTotemsTotemHandler {
     public ValeTotemsTotemHandler(ValeTotemsContext context, ValeTotemsSpiritDetector spiritDetector) {
         this.context = context;
         this.spiritDetector = spiritDetector;
+        context.getChatEvents().subscribe(line -> finalDecorationAdded = true, FINAL_DECORATION_MESSAGE);
     }
 
     public void setGoToClosestBankCallback(Runnable callback) {
@@ -85,6 +88,7 @@ public class ValeTotemsTotemHandler {
             return handleDecorationCompletion(area);
         }
 
+        spiritDetector.setScanArea(area);
         RSObject totemObject = findTotemObject(area);
 
         if (!walkToTotemAreaIfNeeded(area, totemObject)) {
@@ -132,24 +136,11 @@ public class ValeTotemsTotemHandler {
     }
 
     public boolean handleDecorationCompletion(Area area) {
-        boolean decorationComplete = context.getScript().pollFramesUntil(() -> {
-            UIResultList chatboxText = context.getScript().getWidgetManager().getChatbox().getText();
-            if (chatboxText == null) {
-                return false;
-            }
-            List<String> chatLines = chatboxText.asList();
-            if (chatLines == null || chatLines.isEmpty()) {
-                return false;
-            }
-            int linesToCheck = Math.min(CHATBOX_LINES_TO_CHECK, chatLines.size());
-            for (int i = 0; i < linesToCheck; i++) {
-                String line = chatLines.get(i);
-                if (line != null && line.contains("You add the final decoration")) {
-                    return true;
-                }
-            }
-            return false;
-        }, getDecorationTimeout(), false, false);
+        // The bus only publishes lines it can tell are new, so the top lines are checked too, as before the bus
+        boolean decorationComplete = context.getScript().pollFramesUntil(
+                () -> hasRecentChatLine(FINAL_DECORATION_MESSAGE) || finalDecorationAdded,
+                getDecorationTimeout(), false, false);
+        finalDecorationAdded = false;
 
         if (decorationComplete) {
             if (onTotemCompletedCallback != null) {
@@ -171,10 +162,7 @@ public class ValeTotemsTotemHandler {
     }
 
     public boolean walkToObject(WorldPosition targetPosition, String objectName, String action, Area targetArea) {
-        RSObject targetObject = context.getScript().getObjectManager().getRSObject(rSObject ->
-                rSObject.getName() != null &&
-                        rSObject.getName().equalsIgnoreCase(objectName) &&
-                        rSObject.getWorldPosition().distanceTo((Position) targetPosition) == 0.0);
+        RSObject targetObject = context.getScene().getAt(targetPosition, objectName);
 
         // For log balance, check if we've successfully crossed to the other side (ends at 1453, 3329)
         if (objectName.equalsIgnoreCase("Log balance") && targetArea.equals(AreaDefinitions.LOG_BALANCE_AREA)) {
@@ -202,10 +190,7 @@ public class ValeTotemsTotemHandler {
                         WorldPosition logBalanceEnd = new WorldPosition(1453, 3329, 0);
                         return pos.distanceTo((Position) logBalanceEnd) < 3.0 || AreaDefinitions.TOTEM_AREA_2.contains(pos);
                     }
-                    RSObject objAfter = context.getScript().getObjectManager().getRSObject(rSObject ->
-                            rSObject.getName() != null &&
-                                    rSObject.getName().equalsIgnoreCase(objectName) &&
-                                    rSObject.getWorldPosition().distanceTo((Position) targetPosition) == 0.0);
+                    RSObject objAfter = context.getScene().getAt(targetPosition, objectName);
                     return targetArea.contains(context.getScript().getWorldPosition()) && (objAfter == null || !isInteractable(objAfter));
                 }, getWalkTimeout(), false, false);
                 if (success) {
@@ -216,10 +201,7 @@ public class ValeTotemsTotemHandler {
         } else {
             WalkConfig.Builder builder = new WalkConfig.Builder().tileRandomisationRadius(TILE_RANDOMISATION_RADIUS_SMALL);
             builder.breakCondition(() -> {
-                RSObject obj = context.getScript().getObjectManager().getRSObject(rSObject ->
-                        rSObject.getName() != null &&
-                                rSObject.getName().equalsIgnoreCase(objectName) &&
-                                rSObject.getWorldPosition().distanceTo((Position) targetPosition) == 0.0);
+                RSObject obj = context.getScene().getAt(targetPosition, objectName);
                 return isInteractable(obj);
             });
             context.getScript().getWalker().walkTo((Position) targetPosition, builder.build());
@@ -248,11 +230,11 @@ public class ValeTotemsTotemHandler {
 
         // Avoid problematic area by using a waypoint if path would go through it
         WorldPosition currentPos = context.getScript().getWorldPosition();
-        Position targetPosition;
+        WorldPosition targetPosition;
         if (totemObject != null) {
-            targetPosition = (Position) totemObject.getWorldPosition();
+            targetPosition = totemObject.getWorldPosition();
         } else {
-            targetPosition = (Position) area.getRandomPosition();
+            targetPosition = area.getRandomPosition();
         }
 
         // If we're near or in the problematic area, use a waypoint to avoid it
@@ -265,7 +247,7 @@ public class ValeTotemsTotemHandler {
         }
 
         WalkConfig.Builder builder = new WalkConfig.Builder().tileRandomisationRadius(TILE_RANDOMISATION_RADIUS_SMALL);
-        builder.breakCondition(() -> {
+        BooleanSupplier arrived = () -> {
             WorldPosition currentPos2 = context.getScript().getWorldPosition();
             if (currentPos2 == null) {
                 return false;
@@ -278,10 +260,11 @@ public class ValeTotemsTotemHandler {
             return foundTotem != null &&
                     isInteractable(foundTotem) &&
                     foundTotem.distance(currentPos2) < TOTEM_INTERACTION_DISTANCE;
-        });
+        };
 
-        if (context.getScript().getLastPositionChangeMillis() > 1500L) {
-            context.getScript().getWalker().walkTo(targetPosition, builder.build());
+        // The totem legs are the same every loop, so they are replayed from recorded routes
+        if (context.getMotion().isStationaryFor(1500L)) {
+            context.getRoutes().walkTo(targetPosition, builder, arrived);
         }
         return false;
     }
@@ -384,6 +367,8 @@ public class ValeTotemsTotemHandler {
                 }
                 if (actionLower.contains("decorate")) {
                     currentAction = TotemAction.DECORATE;
+                    // A message from an earlier decoration must not end this one
+                    finalDecorationAdded = false;
                     return menuEntry;
                 }
             }
@@ -470,16 +455,23 @@ public class ValeTotemsTotemHandler {
         }
     }
 
+    private boolean hasRecentChatLine(String message) {
+        List<String> lines = context.getChatEvents().getLines();
+        int linesToCheck = Math.min(CHATBOX_LINES_TO_CHECK, lines.size());
+        for (int i = 0; i < linesToCheck; i++) {
+            String line = lines.get(i);
+            if (line != null && line.contains(message)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     private boolean checkForNoLogsMessage() {
         boolean hasTapHereDialogue = context.getScript().getWidgetManager().getDialogue().isVisible() &&
                 context.getScript().getWidgetManager().getDialogue().getDialogueType() == DialogueType.TAP_HERE_TO_CONTINUE;
 
-        UIResultList chatboxText = context.getScript().getWidgetManager().getChatbox().getText();
-        if (chatboxText == null) {
-            return hasTapHereDialogue;
-        }
-        List<String> chatLines = chatboxText.asList();
-        if (chatLines == null || chatLines.isEmpty()) {
+        if (context.getChatEvents().getLines().isEmpty()) {
             return hasTapHereDialogue;
         }
         // If we have a TAP_HERE_TO_CONTINUE dialogue and no logs in inventory, it's likely the "no logs" message
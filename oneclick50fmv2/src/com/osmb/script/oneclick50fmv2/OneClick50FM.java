@@ -7,18 +7,21 @@ import com.osmb.api.script.SkillCategory;
 import com.osmb.api.trackers.experience.XPTracker;
 import com.osmb.api.ui.chatbox.ChatboxFilterTab;
 import com.osmb.api.ui.component.tabs.skill.SkillType;
-import com.osmb.api.utils.UIResultList;
 import com.osmb.api.visual.drawing.Canvas;
+import com.osmb.script.oneclick50fmv2.data.PixelProvider;
 import com.osmb.script.oneclick50fmv2.data.Tree;
 import com.osmb.script.oneclick50fmv2.tasks.BurnLogs;
 import com.osmb.script.oneclick50fmv2.tasks.ChopTrees;
 import com.osmb.script.oneclick50fmv2.tasks.LightBonfire;
 import com.osmb.script.oneclick50fmv2.tasks.Setup;
 import com.osmb.script.oneclick50fmv2.utils.Task;
+import com.sainty.common.ChatboxEventBus;
+import com.sainty.common.ColorMatcher;
+import com.sainty.common.MotionTracker;
+import com.sainty.common.SceneIndex;
 import com.sainty.common.VersionChecker;
 
 import java.awt.*;
-import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
@@ -44,12 +47,16 @@ public class OneClick50FM extends Script {
     private static long lastSkillCheckMs = 0;
     private static final long SKILL_CACHE_INTERVAL_MS = 5 * 60 * 1000;
 
-    private static final List<String> previousChatboxLines = new ArrayList<>();
-
     public static int initialWcLevel = 0;
     public static int initialFmLevel = 0;
     public static int logsBurnt = 0;
+    public static int treePixelScans = 0;
+    public static SceneIndex scene;
+    public static MotionTracker motion;
+    public static long respawnLearnedAtMs = 0L;
+    public static int logsBurntAtRespawnLearned = 0;
 
+    private ChatboxEventBus chatEvents;
     private XPTracker fmXP;
     private XPTracker wcXP;
 
@@ -72,21 +79,60 @@ public class OneClick50FM extends Script {
         }
         log(getClass(), "Starting 1-50 Firemaking at Castle Wars");
         forceNewLightPosition = false;
+        // Statics outlive a stop/start in the same client, so the run's counters start from zero here
+        logsBurnt = 0;
+        treePixelScans = 0;
+        respawnLearnedAtMs = 0L;
+        logsBurntAtRespawnLearned = 0;
 
         var trackers = getXPTrackers();
         fmXP = trackers != null ? trackers.get(SkillType.FIREMAKING) : null;
         wcXP = trackers != null ? trackers.get(SkillType.WOODCUTTING) : null;
 
+        // Tree palette tables take a moment to build, so that happens here rather than on the first tree
+        ColorMatcher.of(PixelProvider.TREE_CLUSTER_NORMAL_OAK);
+        ColorMatcher.of(PixelProvider.TREE_CLUSTER_WILLOW);
+        ColorMatcher.prepareAll();
+
+        scene = new SceneIndex(this);
+        motion = new MotionTracker(this);
         tasks = Arrays.<Task>asList(
                 new Setup(this),
                 new BurnLogs(this),
                 new LightBonfire(this),
                 new ChopTrees(this)
         );
+
+        chatEvents = new ChatboxEventBus(this);
+        chatEvents.subscribe(line -> fireLitFromChat = true,
+                "you light a fire", "you light the fire",
+                "the fire catches and the logs begin to burn", "the logs catch fire and begin to burn");
+        chatEvents.subscribe(line -> {
+            log(getClass(), "Chat: further away – clearing bonfire");
+            bonfirePosition = null;
+        }, "further away.");
+        chatEvents.subscribe(line -> {
+            log(getClass(), "Chat: can't light here – force new position");
+            forceNewLightPosition = true;
+            bonfirePosition = null;
+        }, "light a fire here.", "can't light a fire here");
+        chatEvents.subscribe(line -> {
+            log(getClass(), "Chat: fire burned out – clearing bonfire");
+            bonfirePosition = null;
+        }, "fire has burned out.");
     }
 
     @Override
     public void onNewFrame() {
+        if (scene != null) {
+            scene.onNewFrame();
+        }
+        if (motion != null) {
+            motion.onNewFrame();
+        }
+        if (chatEvents != null) {
+            chatEvents.onNewFrame();
+        }
         if (fmXP == null || wcXP == null) {
             var trackers = getXPTrackers();
             if (trackers != null) {
@@ -154,7 +200,7 @@ public class OneClick50FM extends Script {
 
     private void listenChatbox() {
         var wm = getWidgetManager();
-        if (wm == null) return;
+        if (wm == null || chatEvents == null) return;
         var chatbox = wm.getChatbox();
         if (chatbox == null) return;
         if (wm.getDialogue() != null && wm.getDialogue().getDialogueType() != null) return;
@@ -162,60 +208,7 @@ public class OneClick50FM extends Script {
             chatbox.openFilterTab(ChatboxFilterTab.GAME);
             return;
         }
-        UIResultList textLines = chatbox.getText();
-        if (textLines == null || textLines.isNotVisible()) return;
-        List<String> currentLines = textLines.asList();
-        if (currentLines == null || currentLines.isEmpty()) return;
-
-        int firstDifference = 0;
-        if (!previousChatboxLines.isEmpty()) {
-            if (currentLines.equals(previousChatboxLines)) return;
-            int currSize = currentLines.size();
-            int prevSize = previousChatboxLines.size();
-            for (int i = 0; i < currSize; i++) {
-                int suffixLen = currSize - i;
-                if (suffixLen > prevSize) continue;
-                boolean match = true;
-                for (int j = 0; j < suffixLen; j++) {
-                    if (!currentLines.get(i + j).equals(previousChatboxLines.get(j))) {
-                        match = false;
-                        break;
-                    }
-                }
-                if (match) {
-                    firstDifference = i;
-                    break;
-                }
-            }
-        }
-        previousChatboxLines.clear();
-        previousChatboxLines.addAll(currentLines);
-        if (firstDifference > 0) {
-            onNewChatboxMessage(currentLines.subList(0, firstDifference));
-        }
-    }
-
-    private void onNewChatboxMessage(List<String> newLines) {
-        if (newLines == null) return;
-        for (String line : newLines) {
-            if (line == null) continue;
-            String lower = line.toLowerCase().trim();
-            if (lower.contains("you light a fire") || lower.contains("you light the fire")
-                    || lower.contains("the fire catches and the logs begin to burn")
-                    || lower.contains("the logs catch fire and begin to burn")) {
-                fireLitFromChat = true;
-            } else if (lower.endsWith("further away.")) {
-                log(getClass(), "Chat: further away – clearing bonfire");
-                bonfirePosition = null;
-            } else if (lower.endsWith("light a fire here.") || lower.contains("can't light a fire here")) {
-                log(getClass(), "Chat: can't light here – force new position");
-                forceNewLightPosition = true;
-                bonfirePosition = null;
-            } else if (lower.endsWith("fire has burned out.")) {
-                log(getClass(), "Chat: fire burned out – clearing bonfire");
-                bonfirePosition = null;
-            }
-        }
+        chatEvents.poll();
     }
 
     @Override
@@ -234,7 +227,7 @@ public class OneClick50FM extends Script {
         int y = 40;
         int w = 300;
         int headerH = 45;
-        int bodyH = 280;
+        int bodyH = 312;
         int lineH = 16;
 
         int BG = new Color(12, 14, 20, 235).getRGB();
@@ -260,6 +253,19 @@ public class OneClick50FM extends Script {
         long logsPerHour = (long) ((logsBurnt * 3_600_000D) / elapsed);
         c.drawText("Logs/hr: " + logsPerHour, x + 14, ty, 0xFF66CCFF, body);
         ty += lineH;
+        if (respawnLearnedAtMs > 0) {
+            // Same run split in two: the first window also carries setup and walking, so it is not a baseline
+            long before = Math.max(1, respawnLearnedAtMs - startTime);
+            long after = Math.max(1, System.currentTimeMillis() - respawnLearnedAtMs);
+            long logsPerHourBefore = (long) ((logsBurntAtRespawnLearned * 3_600_000D) / before);
+            long logsPerHourAfter = (long) (((logsBurnt - logsBurntAtRespawnLearned) * 3_600_000D) / after);
+            c.drawText("  Logs/hr warm-up / learned respawn: " + logsPerHourBefore + " / " + logsPerHourAfter, x + 14, ty, 0xFF66CCFF, body);
+        } else {
+            c.drawText("  Respawn timing: learning...", x + 14, ty, 0xFF888888, body);
+        }
+        ty += lineH;
+        c.drawText("Tree scans/log: " + (logsBurnt > 0 ? treePixelScans / logsBurnt : treePixelScans), x + 14, ty, 0xFF888888, body);
+        ty += lineH;
         ty += 8; // spacer
         c.drawText("Firemaking:", x + 14, ty, 0xFFFF8800, body);
         ty += lineH;
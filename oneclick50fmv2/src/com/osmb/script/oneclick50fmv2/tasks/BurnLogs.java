@@ -89,16 +89,7 @@ public class BurnLogs extends Task {
 
     private RSObject getBonfireObject() {
         if (OneClick50FM.bonfirePosition == null) return null;
-        var objMgr = script.getObjectManager();
-        if (objMgr == null) return null;
-        List<RSObject> fires = objMgr.getObjects(obj -> {
-            if (obj == null || obj.getWorldPosition() == null) return false;
-            if (!obj.getWorldPosition().equals(OneClick50FM.bonfirePosition)) return false;
-            String name = obj.getName();
-            return name != null &&
-                    (name.equalsIgnoreCase("Fire") || name.equalsIgnoreCase("Forester's Campfire"));
-        });
-        return (fires == null || fires.isEmpty()) ? null : fires.get(0);
+        return OneClick50FM.scene.getAt(OneClick50FM.bonfirePosition, "Fire", "Forester's Campfire");
     }
 
     private boolean useLogsOnBonfire(Polygon bonfireTapPoly) {
@@ -288,19 +279,7 @@ public class BurnLogs extends Task {
             return true;
         }
 
-        var objMgr = script.getObjectManager();
-        if (objMgr == null) return false;
-
-        List<RSObject> fires = objMgr.getObjects(obj -> {
-            if (obj == null || obj.getWorldPosition() == null) return false;
-            if (!obj.getWorldPosition().equals(OneClick50FM.bonfirePosition)) return false;
-
-            String name = obj.getName();
-            return name != null &&
-                    (name.equalsIgnoreCase("Fire") || name.equalsIgnoreCase("Forester's Campfire"));
-        });
-
-        return fires != null && !fires.isEmpty();
+        return OneClick50FM.scene.getAt(OneClick50FM.bonfirePosition, "Fire", "Forester's Campfire") != null;
     }
 
 
@@ -6,12 +6,14 @@ import com.osmb.api.location.position.types.WorldPosition;
 import com.osmb.api.scene.RSObject;
 import com.osmb.api.script.Script;
 import com.osmb.api.shape.Polygon;
-import com.osmb.api.ui.component.chatbox.ChatboxComponent;
 import com.osmb.api.walker.WalkConfig;
+import com.osmb.script.oneclick50fmv2.utils.RespawnTimeline;
 import com.osmb.script.oneclick50fmv2.utils.Task;
+import com.osmb.script.oneclick50fmv2.utils.TreeStateCache;
 import com.osmb.script.oneclick50fmv2.OneClick50FM;
 import com.osmb.script.oneclick50fmv2.data.Areas;
 import com.osmb.script.oneclick50fmv2.data.Tree;
+import com.sainty.common.MotionTracker;
 
 import java.util.*;
 import java.util.stream.Collectors;
@@ -23,6 +25,8 @@ public class ChopTrees extends Task {
 
     private static final int RESPAWN_WAIT_MIN_MS = 6000;
     private static final int RESPAWN_WAIT_MAX_MS = 10000;
+    private static final int RESPAWN_WAIT_SLACK_MS = 1500;
+    private static final int WALK_MS_PER_TILE = 600;
     private static final int WALK_STABLE_MIN_MS = 1000;
     private static final int WALK_STABLE_MAX_MS = 3000;
     private static final int REACH_TREE_TIMEOUT_MIN_MS = 5000;
@@ -36,10 +40,13 @@ public class ChopTrees extends Task {
     private static final int POST_CHOP_PAUSE_CHANCE_DENOM = 4;
     private static final Map<WorldPosition, Long> treeBlacklist = new HashMap<>();
 
+    private final TreeStateCache treeStates;
+    private final RespawnTimeline respawnTimeline = new RespawnTimeline();
     private long lastLevelCheckMs = 0;
 
     public ChopTrees(Script script) {
         super(script);
+        this.treeStates = new TreeStateCache(script);
     }
 
     private long getTreeBlacklistTimeout() {
@@ -103,40 +110,34 @@ public class ChopTrees extends Task {
             return handleMissingTrees();
         }
 
+        treeStates.refreshView();
         List<RSObject> visibleTrees = getVisibleTrees(trees, playerPos, treeArea);
         List<RSObject> activeTrees = getActiveTrees(visibleTrees);
+        checkRespawnLearned();
 
         if (activeTrees.isEmpty()) {
-            trees.removeAll(visibleTrees);
-            if (!trees.isEmpty()) {
-                trees.sort(Comparator.comparingDouble(t -> t.distance(playerPos)));
-                RSObject nearest = trees.get(0);
-                script.log(getClass(), "Walking to off-screen tree");
-
-                if (script.getWorldPosition() == null) return false;
-                var walker = script.getWalker();
-                if (walker == null) return false;
-
-                WalkConfig config = new WalkConfig.Builder()
-                        .breakCondition(() -> {
-                            WorldPosition pos = script.getWorldPosition();
-                            return pos != null && nearest.getTileDistance(pos) <= 1;
-                        })
-                        .tileRandomisationRadius(2)
-                        .timeout(8000)
-                        .build();
+            // Pick whichever tree can be chopped soonest, counting the walk there
+            RSObject next = trees.stream()
+                    .filter(t -> t.getWorldPosition() != null && !treeBlacklist.containsKey(t.getWorldPosition()))
+                    .min(Comparator.comparingLong(t -> getExpectedChopAt(t, playerPos, now)))
+                    .orElse(null);
 
-                walker.walkTo(nearest, config);
-                return true;
+            if (next != null && !visibleTrees.contains(next)) {
+                script.log(getClass(), "Walking to off-screen tree");
+                return walkToTree(next);
             }
 
+            // Drop to the fallback tree only when nothing here is due back soon
             Tree fallback = OneClick50FM.selectedTree.getFallback();
-            if (fallback != null) {
+            if (fallback != null && (next == null || getExpectedChopAt(next, playerPos, now) - now > RESPAWN_WAIT_MAX_MS)) {
                 return handleMissingTrees();
             }
-            script.log(getClass(), "All trees are stumps - waiting for respawn...");
-            script.pollFramesHuman(() -> true, uniformRandom(RESPAWN_WAIT_MIN_MS, RESPAWN_WAIT_MAX_MS));
-            return true;
+            if (next == null) {
+                script.log(getClass(), "All trees are stumps - waiting for respawn...");
+                script.pollFramesHuman(() -> true, uniformRandom(RESPAWN_WAIT_MIN_MS, RESPAWN_WAIT_MAX_MS));
+                return true;
+            }
+            return waitForRespawn(next, playerPos);
         }
 
         RSObject target = activeTrees.get(0);
@@ -208,8 +209,6 @@ public class ChopTrees extends Task {
 
     private List<RSObject> getVisibleTrees(List<RSObject> trees, WorldPosition playerPos, Area treeArea) {
         if (trees == null || playerPos == null || treeArea == null) return Collections.emptyList();
-        var wm = script.getWidgetManager();
-        if (wm == null) return Collections.emptyList();
 
         return trees.stream()
                 .filter(tree -> {
@@ -222,18 +221,7 @@ public class ChopTrees extends Task {
 
                     if (!tree.canReach() || tree.getTileDistance(playerPos) > 15) return false;
 
-                    Polygon hull = tree.getConvexHull();
-                    if (hull == null) return false;
-
-                    hull = hull.getResized(0.5);
-                    if (hull == null) return false;
-
-                    double visibility = wm.insideGameScreenFactor(
-                            hull,
-                            List.of(ChatboxComponent.class)
-                    );
-
-                    return visibility >= 0.5;
+                    return treeStates.getVisibility(tree) >= 0.5;
                 })
                 .sorted(Comparator.comparingDouble(t -> t.distance(playerPos)))
                 .collect(Collectors.toList());
@@ -242,24 +230,15 @@ public class ChopTrees extends Task {
     private List<RSObject> getActiveTrees(List<RSObject> trees) {
         if (trees == null || OneClick50FM.selectedTree == null) return Collections.emptyList();
 
-        var pixelAnalyzer = script.getPixelAnalyzer();
-        if (pixelAnalyzer == null) return Collections.emptyList();
+        if (script.getScreen() == null) return Collections.emptyList();
 
         List<RSObject> active = new ArrayList<>();
 
+        long now = System.currentTimeMillis();
         for (RSObject tree : trees) {
-            Polygon hull = tree.getConvexHull();
-            if (hull == null) continue;
-
-            hull = hull.getResized(0.5);
-            if (hull == null) continue;
-
-            int pixelCount = pixelAnalyzer.findPixels(
-                    hull,
-                    OneClick50FM.selectedTree.getCluster()
-            ).size();
-
-            if (pixelCount >= 20) {
+            boolean alive = treeStates.isAlive(tree, OneClick50FM.selectedTree.getCluster());
+            respawnTimeline.observe(OneClick50FM.selectedTree, tree.getWorldPosition(), alive, now);
+            if (alive) {
                 active.add(tree);
             }
         }
@@ -295,15 +274,16 @@ public class ChopTrees extends Task {
         if (tree.getTileDistance(playerPos) > 1) {
             script.log(getClass(), "Walking to tree...");
 
+            MotionTracker motion = OneClick50FM.motion;
             script.pollFramesUntil(() ->
-                            script.getLastPositionChangeMillis() < 600,
+                            motion.getStationaryMs() < 600,
                     uniformRandom(WALK_STABLE_MIN_MS, WALK_STABLE_MAX_MS)
             );
 
             script.pollFramesUntil(() -> {
-                WorldPosition pos = script.getWorldPosition();
+                WorldPosition pos = motion.getPosition();
                 if (pos == null) return false;
-                return script.getLastPositionChangeMillis() > 800 && tree.getTileDistance(pos) <= 1;
+                return motion.getStationaryMs() > 800 && tree.getTileDistance(pos) <= 1;
             }, uniformRandom(REACH_TREE_TIMEOUT_MIN_MS, REACH_TREE_TIMEOUT_MAX_MS));
         }
 
@@ -315,22 +295,14 @@ public class ChopTrees extends Task {
 
         script.log(getClass(), "Chopping...");
 
+        // Only the target tree is watched; its hull is re-projected only when the view changes
         script.pollFramesUntil(() -> {
-            var pa = script.getPixelAnalyzer();
-            if (pa == null) return true;
-
-            Polygon hull = tree.getConvexHull();
-            if (hull == null) return true;
+            if (script.getScreen() == null) return true;
 
-            hull = hull.getResized(0.5);
-            if (hull == null) return true;
-
-            int pixelCount = pa.findPixels(
-                    hull,
-                    OneClick50FM.selectedTree.getCluster()
-            ).size();
-
-            if (pixelCount < 20) {
+            treeStates.refreshView();
+            boolean alive = treeStates.isStillAlive(tree, OneClick50FM.selectedTree.getCluster());
+            respawnTimeline.observe(OneClick50FM.selectedTree, tree.getWorldPosition(), alive, System.currentTimeMillis());
+            if (!alive) {
                 script.log(getClass(), "Tree cut down");
                 return true;
             }
@@ -356,6 +328,61 @@ public class ChopTrees extends Task {
     }
 
 
+    private long getExpectedChopAt(RSObject tree, WorldPosition playerPos, long now) {
+        long availableAt = respawnTimeline.getExpectedAvailableAt(OneClick50FM.selectedTree, tree.getWorldPosition(), now);
+        long walkMs = (long) tree.getTileDistance(playerPos) * WALK_MS_PER_TILE;
+        return Math.max(availableAt, now + walkMs);
+    }
+
+    private boolean walkToTree(RSObject tree) {
+        if (script.getWorldPosition() == null) return false;
+        var walker = script.getWalker();
+        if (walker == null) return false;
+
+        WalkConfig config = new WalkConfig.Builder()
+                .breakCondition(() -> {
+                    WorldPosition pos = script.getWorldPosition();
+                    return pos != null && tree.getTileDistance(pos) <= 1;
+                })
+                .tileRandomisationRadius(2)
+                .timeout(8000)
+                .build();
+
+        walker.walkTo(tree, config);
+        return true;
+    }
+
+    // Stand next to the stump due back first and watch it, instead of sleeping a fixed time
+    private boolean waitForRespawn(RSObject stump, WorldPosition playerPos) {
+        if (stump.getTileDistance(playerPos) > 1) {
+            script.log(getClass(), "Moving to the next tree to respawn");
+            return walkToTree(stump);
+        }
+
+        long now = System.currentTimeMillis();
+        long remaining = respawnTimeline.getExpectedAvailableAt(OneClick50FM.selectedTree, stump.getWorldPosition(), now) - now;
+        int timeout = (int) Math.min(RESPAWN_WAIT_MAX_MS, remaining + RESPAWN_WAIT_SLACK_MS);
+        script.log(getClass(), "Waiting for respawn (~" + (remaining / 1000) + "s)");
+
+        script.pollFramesUntil(() -> {
+            treeStates.refreshView();
+            boolean alive = treeStates.isStillAlive(stump, OneClick50FM.selectedTree.getCluster());
+            respawnTimeline.observe(OneClick50FM.selectedTree, stump.getWorldPosition(), alive, System.currentTimeMillis());
+            return alive;
+        }, timeout);
+        return true;
+    }
+
+    // Marks where logs/hr switches from the default respawn guess to learned timings
+    private void checkRespawnLearned() {
+        if (OneClick50FM.respawnLearnedAtMs != 0 || respawnTimeline.getSamples(OneClick50FM.selectedTree) == 0) return;
+
+        OneClick50FM.respawnLearnedAtMs = System.currentTimeMillis();
+        OneClick50FM.logsBurntAtRespawnLearned = OneClick50FM.logsBurnt;
+        script.log(getClass(), OneClick50FM.selectedTree.getObjectName() + " respawn learned: "
+                + respawnTimeline.getRespawnMs(OneClick50FM.selectedTree) + "ms");
+    }
+
     private void walkToTreeArea(Area treeArea) {
         if (treeArea == null) return;
         if (script.getWorldPosition() == null) return;
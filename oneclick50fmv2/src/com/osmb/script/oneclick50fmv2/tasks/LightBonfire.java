@@ -5,7 +5,6 @@ import com.osmb.api.item.ItemID;
 import com.osmb.api.item.ItemSearchResult;
 import com.osmb.api.location.position.types.LocalPosition;
 import com.osmb.api.location.position.types.WorldPosition;
-import com.osmb.api.scene.RSObject;
 import com.osmb.api.script.Script;
 import com.osmb.api.walker.WalkConfig;
 import com.osmb.script.oneclick50fmv2.OneClick50FM;
@@ -131,15 +130,7 @@ public class LightBonfire extends Task {
 
     private boolean fireObjectAtTile(WorldPosition tile) {
         if (tile == null) return false;
-        var objMgr = script.getObjectManager();
-        if (objMgr == null) return false;
-        List<RSObject> at = objMgr.getObjects(obj -> {
-            if (obj == null || obj.getWorldPosition() == null) return false;
-            if (!obj.getWorldPosition().equals(tile)) return false;
-            String name = obj.getName();
-            return name != null && (name.equalsIgnoreCase("Fire") || name.equalsIgnoreCase("Forester's Campfire"));
-        });
-        return at != null && !at.isEmpty();
+        return OneClick50FM.scene.getAt(tile, "Fire", "Forester's Campfire") != null;
     }
 
 
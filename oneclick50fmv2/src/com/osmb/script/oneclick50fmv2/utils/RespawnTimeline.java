@@ -0,0 +1,88 @@
+package com.osmb.script.oneclick50fmv2.utils;
+
+import com.osmb.api.location.position.types.WorldPosition;
+import com.osmb.script.oneclick50fmv2.data.Tree;
+
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * When each tree was seen as a stump, and how long each tree type takes to grow back.
+ * <p>
+ * A respawn time is only learned from stumps that were seen falling, i.e. seen alive and then as a stump,
+ * so the start of the timeline is known. Until a type has a sample, the default estimate is used.
+ */
+public class RespawnTimeline {
+    private static final long DEFAULT_RESPAWN_MS = 8000;
+    private static final double LEARN_RATE = 0.3;
+    private static final int FORGET_AFTER_RESPAWNS = 4;
+
+    private final Map<WorldPosition, Stump> stumps = new HashMap<>();
+    private final Map<WorldPosition, Long> lastSeenAlive = new HashMap<>();
+    private final Map<Tree, Double> respawnMs = new EnumMap<>(Tree.class);
+    private final Map<Tree, Integer> samples = new EnumMap<>(Tree.class);
+
+    private static class Stump {
+        final Tree type;
+        final long since;
+        final boolean exact;
+
+        Stump(Tree type, long since, boolean exact) {
+            this.type = type;
+            this.since = since;
+            this.exact = exact;
+        }
+    }
+
+    public void observe(Tree type, WorldPosition position, boolean alive, long now) {
+        if (type == null || position == null) return;
+
+        if (alive) {
+            Stump stump = stumps.remove(position);
+            if (stump != null && stump.exact && stump.type == type) {
+                learn(type, now - stump.since);
+            }
+            lastSeenAlive.put(position, now);
+            return;
+        }
+
+        if (!stumps.containsKey(position)) {
+            Long aliveAt = lastSeenAlive.remove(position);
+            // Seen standing moments ago, so it fell between the two sightings
+            boolean exact = aliveAt != null && now - aliveAt <= getRespawnMs(type) / 2;
+            stumps.put(position, new Stump(type, now, exact));
+        }
+    }
+
+    /**
+     * When the tree should next be choppable; {@code now} if it isn't known to be a stump.
+     */
+    public long getExpectedAvailableAt(Tree type, WorldPosition position, long now) {
+        Stump stump = position != null ? stumps.get(position) : null;
+        if (stump == null) return now;
+
+        long expected = stump.since + getRespawnMs(type);
+        if (now - expected > getRespawnMs(type) * FORGET_AFTER_RESPAWNS) {
+            // Long overdue: it has grown back and possibly been cut again without us seeing
+            stumps.remove(position);
+            return now;
+        }
+        return Math.max(now, expected);
+    }
+
+    public long getRespawnMs(Tree type) {
+        Double learned = respawnMs.get(type);
+        return learned != null ? Math.round(learned) : DEFAULT_RESPAWN_MS;
+    }
+
+    public int getSamples(Tree type) {
+        return samples.getOrDefault(type, 0);
+    }
+
+    private void learn(Tree type, long duration) {
+        Double previous = respawnMs.get(type);
+        respawnMs.put(type, previous == null ? duration : previous + LEARN_RATE * (duration - previous));
+        samples.merge(type, 1, Integer::sum);
+    }
+}
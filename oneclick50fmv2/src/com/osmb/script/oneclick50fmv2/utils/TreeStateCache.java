@@ -0,0 +1,133 @@
+package com.osmb.script.oneclick50fmv2.utils;
+
+import com.osmb.api.location.position.types.WorldPosition;
+import com.osmb.api.scene.RSObject;
+import com.osmb.api.script.Script;
+import com.osmb.api.shape.Polygon;
+import com.osmb.api.ui.component.chatbox.ChatboxComponent;
+import com.osmb.api.visual.SearchablePixel;
+import com.osmb.script.oneclick50fmv2.OneClick50FM;
+import com.sainty.common.ColorMatcher;
+import com.sainty.common.PixelCounter;
+import com.sainty.common.TileProjectionCache;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Per-tree hull, visibility and alive state, so trees aren't re-projected and re-scanned on every pass.
+ * <p>
+ * Everything is dropped when the view changes: the player moves, or the tiles around the player project
+ * somewhere else (camera turned or zoomed). Entries also expire after a short TTL, since other players
+ * cut trees down and trees grow back without the view changing.
+ */
+public class TreeStateCache {
+    private static final long TTL_MS = 1200;
+    private static final double HULL_SCALE = 0.5;
+    private static final int ALIVE_PIXEL_THRESHOLD = 20;
+
+    private final Script script;
+    private final Map<WorldPosition, Entry> entries = new HashMap<>();
+    private WorldPosition viewPosition;
+    private int[] viewTiles;
+
+    public TreeStateCache(Script script) {
+        this.script = script;
+    }
+
+    private static class Entry {
+        final long createdAt;
+        final Polygon hull;
+        double visibility = Double.NaN;
+        Boolean alive;
+
+        Entry(long createdAt, Polygon hull) {
+            this.createdAt = createdAt;
+            this.hull = hull;
+        }
+    }
+
+    /**
+     * Drops everything if the view changed since the last call, and expired entries otherwise.
+     * Call once per pass before reading any tree.
+     */
+    public void refreshView() {
+        WorldPosition position = script.getWorldPosition();
+        int[] tiles = TileProjectionCache.viewFingerprint(script, position);
+
+        if (position == null || !position.equals(viewPosition) || !Arrays.equals(tiles, viewTiles)) {
+            entries.clear();
+            viewPosition = position;
+            viewTiles = tiles;
+            return;
+        }
+        long now = System.currentTimeMillis();
+        entries.values().removeIf(entry -> now - entry.createdAt > TTL_MS);
+    }
+
+    /**
+     * The tree's convex hull shrunk to its trunk and canopy core, or null if it isn't on screen.
+     */
+    public Polygon getHull(RSObject tree) {
+        Entry entry = getEntry(tree);
+        return entry != null ? entry.hull : null;
+    }
+
+    public double getVisibility(RSObject tree) {
+        Entry entry = getEntry(tree);
+        if (entry == null) return 0;
+
+        if (Double.isNaN(entry.visibility)) {
+            var wm = script.getWidgetManager();
+            if (wm == null) return 0;
+            entry.visibility = wm.insideGameScreenFactor(entry.hull, List.of(ChatboxComponent.class));
+        }
+        return entry.visibility;
+    }
+
+    public boolean isAlive(RSObject tree, SearchablePixel[] cluster) {
+        Entry entry = getEntry(tree);
+        if (entry == null) return false;
+
+        if (entry.alive == null) {
+            entry.alive = scan(entry, cluster, 1);
+        }
+        return entry.alive;
+    }
+
+    /**
+     * Fresh check of a single tree, for watching the one being chopped every frame. Reuses the cached hull and
+     * samples a sparse grid first, which a standing tree's foliage fills past the threshold on its own.
+     */
+    public boolean isStillAlive(RSObject tree, SearchablePixel[] cluster) {
+        Entry entry = getEntry(tree);
+        if (entry == null) return false;
+
+        entry.alive = scan(entry, cluster, PixelCounter.DEFAULT_STRIDE);
+        return entry.alive;
+    }
+
+    // Same answer as findPixels(hull, cluster).size() >= threshold, but stops at the threshold without building points
+    private boolean scan(Entry entry, SearchablePixel[] cluster, int stride) {
+        OneClick50FM.treePixelScans++;
+        return PixelCounter.atLeast(script, entry.hull, ColorMatcher.of(cluster), ALIVE_PIXEL_THRESHOLD, stride);
+    }
+
+    private Entry getEntry(RSObject tree) {
+        WorldPosition position = tree.getWorldPosition();
+        if (position == null) return null;
+
+        Entry entry = entries.get(position);
+        if (entry == null) {
+            Polygon hull = tree.getConvexHull();
+            if (hull != null) hull = hull.getResized(HULL_SCALE);
+            if (hull == null) return null;
+
+            entry = new Entry(System.currentTimeMillis(), hull);
+            entries.put(position, entry);
+        }
+        return entry;
+    }
+}
@@ -0,0 +1,100 @@
+package com.sainty.common;
+
+import com.osmb.api.visual.SearchablePixel;
+import com.osmb.api.visual.color.ColorModel;
+import com.osmb.api.visual.color.tolerance.impl.SingleThresholdComparator;
+
+import java.util.Random;
+
+/**
+ * Compares {@link ColorMatcher}'s table lookup with the API's own comparator per pixel (what {@code findPixels}
+ * does), for the HSL normal/oak tree palette on a tree-hull sized region of synthetic screen pixels. Both paths
+ * must agree on the count. Needs API.jar on the classpath.
+ * <p>
+ * Usage: {@code ColorMatcherBench [width] [height] [rounds]}
+ */
+public final class ColorMatcherBench {
+    private static final int[] TREE_NORMAL_OAK = {
+            -14012413, -14209512, -12958706, -11316685, -13222121, -13486817,
+            -11312366, -11972309, -13089777, -12103646, -15329787, -15131126
+    };
+
+    private static final SearchablePixel[] PALETTE = palette(TREE_NORMAL_OAK);
+
+    private ColorMatcherBench() {
+    }
+
+    public static void main(String[] args) {
+        int width = args.length > 0 ? Integer.parseInt(args[0]) : 120;
+        int height = args.length > 1 ? Integer.parseInt(args[1]) : 180;
+        int rounds = args.length > 2 ? Integer.parseInt(args[2]) : 200;
+
+        int[] pixels = syntheticScreen(width, height, new Random(42));
+
+        ColorMatcher matcher = ColorMatcher.of(PALETTE);
+        long t0 = System.nanoTime();
+        matcher.prepare();
+        long buildMs = (System.nanoTime() - t0) / 1_000_000;
+
+        int expected = 0;
+        int actual = 0;
+        long direct = Long.MAX_VALUE;
+        long table = Long.MAX_VALUE;
+        for (int r = 0; r < rounds; r++) {
+            t0 = System.nanoTime();
+            expected = countApi(pixels);
+            direct = Math.min(direct, System.nanoTime() - t0);
+
+            t0 = System.nanoTime();
+            actual = matcher.count(pixels, width, 0, 0, width, height);
+            table = Math.min(table, System.nanoTime() - t0);
+        }
+
+        System.out.printf("HSL tree palette, %dx%d, table built in %d ms%n", width, height, buildMs);
+        System.out.printf("  API comparator    : %8.1f us  (%d matches)%n", direct / 1000.0, expected);
+        System.out.printf("  table lookup      : %8.1f us  (%d matches)%n", table / 1000.0, actual);
+        if (expected != actual) {
+            System.out.println("  MISMATCH");
+            System.exit(1);
+        }
+    }
+
+    private static SearchablePixel[] palette(int[] colors) {
+        SearchablePixel[] palette = new SearchablePixel[colors.length];
+        for (int i = 0; i < colors.length; i++) {
+            palette[i] = new SearchablePixel(colors[i], new SingleThresholdComparator(2), ColorModel.HSL);
+        }
+        return palette;
+    }
+
+    private static int countApi(int[] pixels) {
+        int count = 0;
+        for (int p : pixels) {
+            if (ColorMatcher.apiMatches(PALETTE, p)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    // Mostly foliage-adjacent colors with noise, so both matches and near misses are common
+    private static int[] syntheticScreen(int width, int height, Random random) {
+        int[] pixels = new int[width * height];
+        for (int i = 0; i < pixels.length; i++) {
+            if (random.nextInt(3) == 0) {
+                pixels[i] = 0xFF000000 | random.nextInt(1 << 24);
+                continue;
+            }
+            int base = TREE_NORMAL_OAK[random.nextInt(TREE_NORMAL_OAK.length)];
+            int r = clamp(((base >>> 16) & 0xFF) + random.nextInt(13) - 6);
+            int g = clamp(((base >>> 8) & 0xFF) + random.nextInt(13) - 6);
+            int b = clamp((base & 0xFF) + random.nextInt(13) - 6);
+            pixels[i] = 0xFF000000 | (r << 16) | (g << 8) | b;
+        }
+        return pixels;
+    }
+
+    private static int clamp(int v) {
+        return Math.max(0, Math.min(255, v));
+    }
+}
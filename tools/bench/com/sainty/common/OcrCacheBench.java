@@ -0,0 +1,77 @@
+package com.sainty.common;
+
+import java.util.Random;
+import java.util.function.IntBinaryOperator;
+
+/**
+ * Times {@link OcrCache}'s region hash against the color-mask pass every OCR call starts with (one color
+ * comparison per pixel, before any glyph is matched). Both read the frame one {@code getRGB(x, y)} call per
+ * pixel, through the same code {@code OcrCache.getText} runs. The hash has to stay within that floor for a
+ * cache lookup to be cheaper than the OCR it saves. Also checks that changing one pixel changes the hash.
+ * <p>
+ * Usage: {@code OcrCacheBench [rounds]}
+ */
+public final class OcrCacheBench {
+    private static final int SCREEN_WIDTH = 765;
+    private static final int SCREEN_HEIGHT = 503;
+    private static final int TEXT_COLOR = 0xFF9933;
+
+    private OcrCacheBench() {
+    }
+
+    public static void main(String[] args) {
+        int rounds = args.length > 0 ? Integer.parseInt(args[0]) : 5000;
+        Random random = new Random(7);
+        int[] screen = new int[SCREEN_WIDTH * SCREEN_HEIGHT];
+        for (int i = 0; i < screen.length; i++) {
+            screen[i] = random.nextInt(4) == 0 ? TEXT_COLOR : 0xFF000000 | random.nextInt(1 << 24);
+        }
+
+        IntBinaryOperator frame = (x, y) -> screen[y * SCREEN_WIDTH + x];
+        bench("shop title 476x23", frame, 140, 60, 476, 23, rounds);
+        bench("spirit label 90x18", frame, 300, 200, 90, 18, rounds);
+        bench("amount button 40x20", frame, 420, 300, 40, 20, rounds);
+
+        long before = OcrCache.hash(frame, 300, 200, 90, 18);
+        screen[205 * SCREEN_WIDTH + 340] ^= 1;
+        long after = OcrCache.hash(frame, 300, 200, 90, 18);
+        System.out.println(before != after ? "one-pixel change detected" : "ONE-PIXEL CHANGE MISSED");
+        if (before == after) {
+            System.exit(1);
+        }
+    }
+
+    private static void bench(String label, IntBinaryOperator frame, int x, int y, int width, int height,
+                              int rounds) {
+        long hashNs = Long.MAX_VALUE;
+        long maskNs = Long.MAX_VALUE;
+        long sink = 0;
+        for (int r = 0; r < rounds; r++) {
+            long t0 = System.nanoTime();
+            sink += OcrCache.hash(frame, x, y, width, height);
+            hashNs = Math.min(hashNs, System.nanoTime() - t0);
+
+            t0 = System.nanoTime();
+            sink += mask(frame, x, y, width, height);
+            maskNs = Math.min(maskNs, System.nanoTime() - t0);
+        }
+        System.out.printf("%-20s hash %6.2f us, color mask %6.2f us  (%d)%n",
+                label, hashNs / 1000.0, maskNs / 1000.0, sink & 1);
+    }
+
+    private static int mask(IntBinaryOperator frame, int x, int y, int width, int height) {
+        int on = 0;
+        for (int row = y; row < y + height; row++) {
+            for (int col = x; col < x + width; col++) {
+                int p = frame.applyAsInt(col, row) & 0xFFFFFF;
+                int dr = Math.abs(((p >>> 16) & 0xFF) - ((TEXT_COLOR >>> 16) & 0xFF));
+                int dg = Math.abs(((p >>> 8) & 0xFF) - ((TEXT_COLOR >>> 8) & 0xFF));
+                int db = Math.abs((p & 0xFF) - (TEXT_COLOR & 0xFF));
+                if (dr <= 10 && dg <= 10 && db <= 10) {
+                    on++;
+                }
+            }
+        }
+        return on;
+    }
+}
@@ -0,0 +1,151 @@
+package com.sainty.common;
+
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Property check for {@link PixelClusterer}: on randomly generated pixel sets it must return exactly the
+ * rectangles, in the same order, as merging each pixel into the first rectangle in reach one by one.
+ * Also times both on a screen full of labels and on one full of small isolated overlays.
+ * <p>
+ * Usage: {@code PixelClustererCheck [cases] [seed]}
+ */
+public final class PixelClustererCheck {
+    private PixelClustererCheck() {
+    }
+
+    public static void main(String[] args) {
+        int cases = args.length > 0 ? Integer.parseInt(args[0]) : 5000;
+        long seed = args.length > 1 ? Long.parseLong(args[1]) : System.nanoTime();
+        Random random = new Random(seed);
+
+        for (int c = 0; c < cases; c++) {
+            List<Point> pixels = randomPixels(random);
+            int mergeDistance = random.nextInt(4) == 0 ? random.nextInt(20) : 12;
+            int[] expected = pack(reference(pixels, mergeDistance));
+            int[] actual = PixelClusterer.cluster(pixels, mergeDistance);
+            if (!Arrays.equals(expected, actual)) {
+                System.out.println("FAIL: seed " + seed + ", case " + c + ", " + pixels.size()
+                        + " pixels, merge distance " + mergeDistance);
+                System.exit(1);
+            }
+        }
+        System.out.println("PASS: " + cases + " cases, seed " + seed);
+
+        time("60 labels", labels(random, 60, 765, 503));
+        // Many small overlays that never merge: the worst case for checking every rectangle so far
+        List<Point> specks = new ArrayList<>();
+        for (int y = 0; y < 503; y += 16) {
+            for (int x = 0; x < 765; x += 16) {
+                specks.add(new Point(x, y));
+                specks.add(new Point(x + 1, y));
+            }
+        }
+        time("isolated specks", specks);
+    }
+
+    private static void time(String label, List<Point> pixels) {
+        long reference = Long.MAX_VALUE;
+        long grid = Long.MAX_VALUE;
+        for (int r = 0; r < 50; r++) {
+            long t0 = System.nanoTime();
+            reference(pixels, 12);
+            reference = Math.min(reference, System.nanoTime() - t0);
+            t0 = System.nanoTime();
+            PixelClusterer.cluster(pixels, 12);
+            grid = Math.min(grid, System.nanoTime() - t0);
+        }
+        System.out.printf("%s, %d pixels: pairwise merge %.2f ms, grid %.2f ms%n",
+                label, pixels.size(), reference / 1e6, grid / 1e6);
+    }
+
+    // The merge loop ValeTotemsSpiritDetector used before PixelClusterer
+    static List<Rectangle> reference(List<Point> pixels, int mergeDistance) {
+        List<Rectangle> rectangles = new ArrayList<>();
+        for (Point point : pixels) {
+            Rectangle newRect = new Rectangle(point.x, point.y, 1, 1);
+            boolean merged = false;
+            for (int i = 0; i < rectangles.size(); i++) {
+                Rectangle existing = rectangles.get(i);
+                int dx = Math.max(existing.x - point.x, point.x - (existing.x + existing.width));
+                int dy = Math.max(existing.y - point.y, point.y - (existing.y + existing.height));
+                if (dx <= mergeDistance && dy <= mergeDistance) {
+                    rectangles.set(i, existing.union(newRect));
+                    merged = true;
+                    break;
+                }
+            }
+            if (!merged) {
+                rectangles.add(newRect);
+            }
+        }
+        return rectangles;
+    }
+
+    private static int[] pack(List<Rectangle> rectangles) {
+        int[] out = new int[rectangles.size() * 4];
+        for (int i = 0; i < rectangles.size(); i++) {
+            Rectangle r = rectangles.get(i);
+            out[i * 4] = r.x;
+            out[i * 4 + 1] = r.y;
+            out[i * 4 + 2] = r.width;
+            out[i * 4 + 3] = r.height;
+        }
+        return out;
+    }
+
+    private static List<Point> randomPixels(Random random) {
+        int width = 20 + random.nextInt(300);
+        int height = 20 + random.nextInt(200);
+        List<Point> pixels;
+        switch (random.nextInt(3)) {
+            case 0:
+                pixels = new ArrayList<>();
+                int n = random.nextInt(400);
+                for (int i = 0; i < n; i++) {
+                    pixels.add(new Point(random.nextInt(width) - 10, random.nextInt(height) - 10));
+                }
+                break;
+            case 1:
+                pixels = labels(random, 1 + random.nextInt(8), width, height);
+                break;
+            default:
+                pixels = labels(random, 1 + random.nextInt(8), width, height);
+                Collections.shuffle(pixels, random);
+                break;
+        }
+        return pixels;
+    }
+
+    // Text-like blobs in screen scan order, as findPixels returns them
+    private static List<Point> labels(Random random, int count, int width, int height) {
+        boolean[][] on = new boolean[height][width];
+        for (int l = 0; l < count; l++) {
+            int w = 20 + random.nextInt(60);
+            int h = 6 + random.nextInt(6);
+            int x0 = random.nextInt(Math.max(1, width - w));
+            int y0 = random.nextInt(Math.max(1, height - h));
+            for (int y = y0; y < Math.min(height, y0 + h); y++) {
+                for (int x = x0; x < Math.min(width, x0 + w); x++) {
+                    if (random.nextInt(3) == 0) {
+                        on[y][x] = true;
+                    }
+                }
+            }
+        }
+        List<Point> pixels = new ArrayList<>();
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                if (on[y][x]) {
+                    pixels.add(new Point(x, y));
+                }
+            }
+        }
+        return pixels;
+    }
+}
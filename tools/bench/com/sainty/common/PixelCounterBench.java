@@ -0,0 +1,101 @@
+package com.sainty.common;
+
+import com.osmb.api.visual.SearchablePixel;
+import com.osmb.api.visual.color.ColorModel;
+import com.osmb.api.visual.color.tolerance.impl.SingleThresholdComparator;
+
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Times the tree-alive check on a region the size of a 50%-resized tree hull, with the HSL normal/oak palette
+ * ChopTrees uses: every matching point collected with the API's comparator and the size taken, as
+ * {@code findPixels} does, against {@link PixelCounter#atLeast} on the {@link ColorMatcher#of} table with and
+ * without stride sampling. A standing tree reaches the threshold early; a stump never does and has to be scanned
+ * in full either way. Needs API.jar on the classpath.
+ * <p>
+ * Usage: {@code PixelCounterBench [width] [height] [threshold] [rounds]}
+ */
+public final class PixelCounterBench {
+    private static final int[] TREE_NORMAL_OAK = {
+            -14012413, -14209512, -12958706, -11316685, -13222121, -13486817,
+            -11312366, -11972309, -13089777, -12103646, -15329787, -15131126
+    };
+
+    private PixelCounterBench() {
+    }
+
+    public static void main(String[] args) {
+        int width = args.length > 0 ? Integer.parseInt(args[0]) : 60;
+        int height = args.length > 1 ? Integer.parseInt(args[1]) : 90;
+        int threshold = args.length > 2 ? Integer.parseInt(args[2]) : 20;
+        int rounds = args.length > 3 ? Integer.parseInt(args[3]) : 2000;
+
+        SearchablePixel[] cluster = new SearchablePixel[TREE_NORMAL_OAK.length];
+        for (int i = 0; i < cluster.length; i++) {
+            cluster[i] = new SearchablePixel(TREE_NORMAL_OAK[i], new SingleThresholdComparator(2), ColorModel.HSL);
+        }
+        ColorMatcher palette = ColorMatcher.of(cluster).prepare();
+
+        bench("tree ", screen(width, height, 0.35, new Random(1)), width, height, cluster, palette, threshold, rounds);
+        bench("stump", screen(width, height, 0.0005, new Random(2)), width, height, cluster, palette, threshold, rounds);
+    }
+
+    private static void bench(String label, int[] pixels, int width, int height, SearchablePixel[] cluster,
+                              ColorMatcher palette, int threshold, int rounds) {
+        long listNs = Long.MAX_VALUE;
+        long exactNs = Long.MAX_VALUE;
+        long strideNs = Long.MAX_VALUE;
+        boolean list = false;
+        boolean exact = false;
+        boolean strided = false;
+        for (int r = 0; r < rounds; r++) {
+            long t0 = System.nanoTime();
+            list = findPixels(pixels, width, height, cluster).size() >= threshold;
+            listNs = Math.min(listNs, System.nanoTime() - t0);
+
+            t0 = System.nanoTime();
+            exact = PixelCounter.atLeast((x, y) -> pixels[y * width + x], null, 0, 0, width, height,
+                    palette, threshold, 1);
+            exactNs = Math.min(exactNs, System.nanoTime() - t0);
+
+            t0 = System.nanoTime();
+            strided = PixelCounter.atLeast((x, y) -> pixels[y * width + x], null, 0, 0, width, height,
+                    palette, threshold, PixelCounter.DEFAULT_STRIDE);
+            strideNs = Math.min(strideNs, System.nanoTime() - t0);
+        }
+        System.out.printf("%s %dx%d >= %d%n", label, width, height, threshold);
+        System.out.printf("  findPixels().size()  : %7.2f us  -> %b%n", listNs / 1000.0, list);
+        System.out.printf("  atLeast              : %7.2f us  -> %b%n", exactNs / 1000.0, exact);
+        System.out.printf("  atLeast, stride %d    : %7.2f us  -> %b%n",
+                PixelCounter.DEFAULT_STRIDE, strideNs / 1000.0, strided);
+        if (list != exact || list != strided) {
+            System.out.println("  MISMATCH");
+            System.exit(1);
+        }
+    }
+
+    private static List<Point> findPixels(int[] pixels, int width, int height, SearchablePixel[] cluster) {
+        List<Point> found = new ArrayList<>();
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                if (ColorMatcher.apiMatches(cluster, pixels[y * width + x])) {
+                    found.add(new Point(x, y));
+                }
+            }
+        }
+        return found;
+    }
+
+    private static int[] screen(int width, int height, double foliage, Random random) {
+        int[] pixels = new int[width * height];
+        for (int i = 0; i < pixels.length; i++) {
+            pixels[i] = random.nextDouble() < foliage
+                    ? TREE_NORMAL_OAK[random.nextInt(TREE_NORMAL_OAK.length)]
+                    : 0xFF000000 | random.nextInt(1 << 24);
+        }
+        return pixels;
+    }
+}
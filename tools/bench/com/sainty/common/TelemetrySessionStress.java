@@ -0,0 +1,104 @@
+package com.sainty.common;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hammers one {@link TelemetrySession.Counter} from writer and flusher threads at once and checks
+ * that the deltas handed out add up to exactly what was written: nothing double-counted, nothing lost.
+ * <p>
+ * Usage: {@code TelemetrySessionStress [writers] [flushers] [addsPerWriter]}
+ */
+public final class TelemetrySessionStress {
+    private TelemetrySessionStress() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int writers = args.length > 0 ? Integer.parseInt(args[0]) : 8;
+        int flushers = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+        int adds = args.length > 2 ? Integer.parseInt(args[2]) : 1_000_000;
+
+        boolean ok = checkAdds(writers, flushers, adds) & checkRecords(writers, flushers, adds);
+        System.out.println(ok ? "PASS" : "FAIL");
+        System.exit(ok ? 0 : 1);
+    }
+
+    private static boolean checkAdds(int writers, int flushers, int adds) throws InterruptedException {
+        TelemetrySession.Counter counter = TelemetrySession.get("stress-add").counter("c");
+        AtomicLong reported = new AtomicLong();
+        runConcurrently(writers, flushers, counter, reported, w -> {
+            for (int i = 0; i < adds; i++) {
+                counter.add(1 + (i & 3));
+            }
+        });
+        long expected = (long) writers * perWriterSum(adds);
+        return report("add", expected, reported.get() + counter.takeDelta());
+    }
+
+    private static boolean checkRecords(int writers, int flushers, int adds) throws InterruptedException {
+        TelemetrySession.Counter counter = TelemetrySession.get("stress-record").counter("c");
+        AtomicLong reported = new AtomicLong();
+        // Writers race to publish an increasing running total, as scripts do through flush(Map)
+        runConcurrently(writers, flushers, counter, reported, w -> {
+            for (int i = w; i <= adds; i += writers) {
+                counter.record(i);
+            }
+        });
+        return report("record", adds, reported.get() + counter.takeDelta());
+    }
+
+    private static void runConcurrently(int writers, int flushers, TelemetrySession.Counter counter,
+                                        AtomicLong reported, WriterBody body) throws InterruptedException {
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch writersDone = new CountDownLatch(writers);
+        Thread[] threads = new Thread[writers + flushers];
+        for (int w = 0; w < writers; w++) {
+            int id = w;
+            threads[w] = new Thread(() -> {
+                await(start);
+                body.run(id);
+                writersDone.countDown();
+            });
+        }
+        for (int f = 0; f < flushers; f++) {
+            threads[writers + f] = new Thread(() -> {
+                await(start);
+                while (writersDone.getCount() > 0) {
+                    reported.addAndGet(counter.takeDelta());
+                }
+            });
+        }
+        for (Thread t : threads) {
+            t.start();
+        }
+        start.countDown();
+        for (Thread t : threads) {
+            t.join();
+        }
+    }
+
+    private static long perWriterSum(int adds) {
+        long sum = 0;
+        for (int i = 0; i < adds; i++) {
+            sum += 1 + (i & 3);
+        }
+        return sum;
+    }
+
+    private static boolean report(String name, long expected, long actual) {
+        System.out.println(name + ": expected=" + expected + " reported=" + actual);
+        return expected == actual;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private interface WriterBody {
+        void run(int writerId);
+    }
+}
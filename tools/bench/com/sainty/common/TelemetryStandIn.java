@@ -0,0 +1,120 @@
+package com.sainty.common;
+
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Local stand-in for the stats endpoint. Measures how long enqueueing takes on the caller's thread
+ * and how many metrics get dropped when the endpoint is slow or never answers, then times raw spool appends and
+ * checks how many batches a long outage keeps.
+ * <p>
+ * Usage: {@code TelemetryStandIn [responseDelayMs|dead] [metrics] [queueCapacity]}
+ */
+public final class TelemetryStandIn {
+    private TelemetryStandIn() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        boolean dead = args.length > 0 && args[0].equals("dead");
+        long delayMs = args.length > 0 && !dead ? Long.parseLong(args[0]) : 1000L;
+        int metrics = args.length > 1 ? Integer.parseInt(args[1]) : 10_000;
+        int capacity = args.length > 2 ? Integer.parseInt(args[2]) : 1024;
+
+        AtomicLong requests = new AtomicLong();
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", exchange -> {
+            try (InputStream in = exchange.getRequestBody()) {
+                in.readAllBytes();
+                requests.incrementAndGet();
+                Thread.sleep(dead ? Long.MAX_VALUE : delayMs);
+                exchange.sendResponseHeaders(204, -1);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                exchange.close();
+            }
+        });
+        server.setExecutor(Executors.newCachedThreadPool(r -> {
+            Thread t = new Thread(r, "standin-handler");
+            t.setDaemon(true);
+            return t;
+        }));
+        server.start();
+
+        String url = "http://127.0.0.1:" + server.getAddress().getPort() + "/";
+        Path spoolDir = Files.createTempDirectory("telemetry-spool");
+        TelemetrySpool spool = new TelemetrySpool(spoolDir, 1 << 20, 4);
+        TelemetrySender sender = new TelemetrySender(url, null, capacity, 250L, spool);
+
+        long worstNs = 0;
+        long totalNs = 0;
+        for (int i = 0; i < metrics; i++) {
+            long t0 = System.nanoTime();
+            sender.offer("StandIn", "metric_" + (i % 3), 1);
+            long took = System.nanoTime() - t0;
+            totalNs += took;
+            worstNs = Math.max(worstNs, took);
+        }
+
+        // Give the sender a couple of request windows before reporting
+        Thread.sleep(Math.min(10_000L, (dead ? 3000L : delayMs) * 2 + 500L));
+
+        System.out.println("endpoint      : " + (dead ? "dead" : delayMs + " ms per request"));
+        System.out.println("offered       : " + metrics);
+        System.out.printf("enqueue avg   : %.2f us%n", totalNs / 1000.0 / metrics);
+        System.out.printf("enqueue max   : %.2f us%n", worstNs / 1000.0);
+        System.out.println("enqueued      : " + sender.getEnqueued());
+        System.out.println("dropped       : " + sender.getDropped());
+        System.out.println("requests seen : " + requests.get());
+        System.out.println("sent / failed : " + sender.getSent() + " / " + sender.getFailed());
+        System.out.println("spooled       : " + sender.getSpooled());
+        System.out.println("refused       : " + sender.getRefusedBatches());
+
+        benchSpoolAppends(Files.createTempDirectory("telemetry-spool-bench"));
+        simulateOutage(Files.createTempDirectory("telemetry-spool-outage"));
+
+        System.exit(0);
+    }
+
+    private static void benchSpoolAppends(Path dir) throws Exception {
+        TelemetrySpool spool = new TelemetrySpool(dir, 1 << 20, 8);
+        List<TelemetrySender.Metric> batch = new ArrayList<>();
+        batch.add(new TelemetrySender.Metric("Bone Blesser", "bone_shards_gained", 1234));
+        batch.add(new TelemetrySender.Metric("Bone Blesser", "potential_prayer_xp_no_sunfire", 5678));
+        batch.add(new TelemetrySender.Metric("Bone Blesser", "runtime_seconds", 60));
+        String json = TelemetrySender.toJson(batch);
+        int appends = 50_000;
+        long t0 = System.nanoTime();
+        for (int i = 0; i < appends; i++) {
+            spool.append(json);
+        }
+        long took = System.nanoTime() - t0;
+        System.out.printf("spool append  : %.2f us avg over %d appends (%d bytes each)%n",
+                took / 1000.0 / appends, appends, json.length());
+        System.out.println("segments lost : " + spool.getDroppedSegments());
+    }
+
+    // Every batch fails and every replay attempt fails too, then the endpoint comes back
+    private static void simulateOutage(Path dir) throws Exception {
+        TelemetrySpool spool = new TelemetrySpool(dir, 1 << 20, 16);
+        List<TelemetrySender.Metric> batch = new ArrayList<>();
+        batch.add(new TelemetrySender.Metric("Bone Blesser", "bone_shards_gained", 1234));
+        String json = TelemetrySender.toJson(batch);
+        int batches = 100;
+        for (int i = 0; i < batches; i++) {
+            spool.append(json);
+            spool.replay(record -> false);
+        }
+        int delivered = spool.replay(record -> true);
+        System.out.println("outage kept   : " + delivered + " of " + batches + " batches, "
+                + spool.getDroppedSegments() + " segments lost");
+    }
+}
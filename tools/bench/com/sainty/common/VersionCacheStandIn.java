@@ -0,0 +1,90 @@
+package com.sainty.common;
+
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Local stand-in for the versions.json host. Walks {@link VersionCache} through a cold start, a fresh hit,
+ * a 304 revalidation, a changed file, a restart from disk, a check from a newer jar and a dead endpoint (where a mismatched check must answer null),
+ * and prints
+ * what went over the wire.
+ */
+public final class VersionCacheStandIn {
+    private VersionCacheStandIn() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        AtomicReference<String> body = new AtomicReference<>("{\n  \"Bone Blesser\": 4.4,\n  \"Winer\": 3.1\n}\n");
+        AtomicInteger full = new AtomicInteger();
+        AtomicInteger notModified = new AtomicInteger();
+
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", exchange -> {
+            String current = body.get();
+            String etag = "\"" + Integer.toHexString(current.hashCode()) + "\"";
+            if (etag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                notModified.incrementAndGet();
+                exchange.sendResponseHeaders(304, -1);
+            } else {
+                full.incrementAndGet();
+                byte[] bytes = current.getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().add("ETag", etag);
+                exchange.sendResponseHeaders(200, bytes.length);
+                try (OutputStream os = exchange.getResponseBody()) {
+                    os.write(bytes);
+                }
+            }
+            exchange.close();
+        });
+        server.start();
+
+        String url = "http://127.0.0.1:" + server.getAddress().getPort() + "/versions.json";
+        Path file = Files.createTempDirectory("version-cache").resolve("versions.cache");
+
+        VersionCache cache = new VersionCache(url, file, 200L);
+        step("cold start", cache, full, notModified);
+        step("fresh hit", cache, full, notModified);
+
+        Thread.sleep(250L);
+        step("stale, answered from memory", cache, full, notModified);
+        Thread.sleep(100L);
+        step("after background 304", cache, full, notModified);
+
+        body.set("{\n  \"Bone Blesser\": 4.5,\n  \"Winer\": 3.1\n}\n");
+        Thread.sleep(250L);
+        cache.versions();
+        Thread.sleep(100L);
+        step("after remote change", cache, full, notModified);
+
+        VersionCache restarted = new VersionCache(url, file, 200L);
+        step("restart from disk", restarted, full, notModified);
+
+        // A newer jar checks in while the cached copy is still fresh but behind
+        body.set("{\n  \"Bone Blesser\": 4.6,\n  \"Winer\": 3.1\n}\n");
+        long t0 = System.nanoTime();
+        Object checked = restarted.versionsFor("Bone Blesser", 4.6);
+        System.out.printf("%-30s %8.2f ms  200s=%d 304s=%d  %s%n", "newer jar, fresh cache",
+                (System.nanoTime() - t0) / 1e6, full.get(), notModified.get(), checked);
+
+        server.stop(0);
+        VersionCache dead = new VersionCache(url, file, 0L);
+        step("dead endpoint, disk copy", dead, full, notModified);
+        System.out.printf("%-30s %s%n", "dead endpoint, newer jar", dead.versionsFor("Bone Blesser", 4.7));
+        Thread.sleep(100L);
+    }
+
+    private static void step(String name, VersionCache cache, AtomicInteger full, AtomicInteger notModified) {
+        long t0 = System.nanoTime();
+        Object versions = cache.versions();
+        long took = System.nanoTime() - t0;
+        System.out.printf("%-30s %8.2f ms  200s=%d 304s=%d  %s%n",
+                name, took / 1e6, full.get(), notModified.get(), versions);
+    }
+}
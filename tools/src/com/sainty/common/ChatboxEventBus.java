@@ -0,0 +1,164 @@
+package com.sainty.common;
+
+import com.osmb.api.ScriptCore;
+import com.osmb.api.utils.UIResultList;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Reads the chatbox at most once per game frame and hands each new line to the listeners whose phrases
+ * it contains.
+ * <p>
+ * Call {@link #onNewFrame()} from the script's {@code onNewFrame} and {@link #poll()} wherever chat should be
+ * checked; repeated polls in the same frame cost nothing. New lines are found by the longest overlap between
+ * the end of this read and the start of the last one, compared by rolling hash, so a read costs one pass
+ * over the lines. When nothing overlaps (first read, or the whole box changed) no lines are published, since
+ * there is no telling which of them are new.
+ * <p>
+ * All listeners' phrases are compiled into one {@link PhraseMatcher}, so each new line is scanned once
+ * however many listeners there are. Matching ignores case. Use from the script thread.
+ */
+public final class ChatboxEventBus {
+    private static final long BASE = 0x100000001B3L;
+
+    public interface Listener {
+        void onLine(String line);
+    }
+
+    private final ScriptCore script;
+    private final List<Listener> listeners = new ArrayList<>();
+    private final List<String> phrases = new ArrayList<>();
+    private final List<Integer> owners = new ArrayList<>();
+    private PhraseMatcher matcher;
+    private volatile long frame;
+    private long readFrame = -1;
+    private List<String> lines = Collections.emptyList();
+    private long[] prefixHashes = new long[1];
+
+    public ChatboxEventBus(ScriptCore script) {
+        this.script = script;
+    }
+
+    /**
+     * Calls the listener for every new line containing any of the phrases (once per line).
+     */
+    public void subscribe(Listener listener, String... phrases) {
+        int id = listeners.size();
+        listeners.add(listener);
+        for (String phrase : phrases) {
+            this.phrases.add(phrase);
+            this.owners.add(id);
+        }
+        matcher = new PhraseMatcher(this.phrases);
+    }
+
+    public void onNewFrame() {
+        frame++;
+    }
+
+    /**
+     * Reads the chatbox if it hasn't been read this frame and publishes the new lines, oldest first.
+     * Returns the new lines, newest first like the chatbox, or an empty list if already read this frame.
+     */
+    public List<String> poll() {
+        if (readFrame == frame) {
+            return Collections.emptyList();
+        }
+        readFrame = frame;
+
+        var chatbox = script.getWidgetManager().getChatbox();
+        UIResultList<String> text = chatbox != null ? chatbox.getText() : null;
+        List<String> current = text == null || text.isNotVisible() ? null : text.asList();
+        if (current == null || current.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        int fresh = countNewLines(current);
+        lines = new ArrayList<>(current);
+        prefixHashes = prefixHashes(lines);
+        if (fresh == 0) {
+            return Collections.emptyList();
+        }
+
+        List<String> newLines = lines.subList(0, fresh);
+        if (matcher != null) {
+            boolean[] fired = new boolean[listeners.size()];
+            for (int i = fresh - 1; i >= 0; i--) {
+                String line = newLines.get(i);
+                if (line == null) {
+                    continue;
+                }
+                Arrays.fill(fired, false);
+                matcher.forEachMatch(line, p -> {
+                    int owner = owners.get(p);
+                    if (!fired[owner]) {
+                        fired[owner] = true;
+                        listeners.get(owner).onLine(line);
+                    }
+                });
+            }
+        }
+        return newLines;
+    }
+
+    /**
+     * The chatbox lines as of this frame's read, newest first.
+     */
+    public List<String> getLines() {
+        poll();
+        return Collections.unmodifiableList(lines);
+    }
+
+    // Lines are newest first, so the lines already seen are a suffix of this read and a prefix of the last
+    private int countNewLines(List<String> current) {
+        int previous = lines.size();
+        if (previous == 0) {
+            return 0;
+        }
+        int n = current.size();
+        long suffix = 0;
+        long power = 1;
+        long[] suffixHashes = new long[n + 1];
+        for (int i = n - 1; i >= 0; i--) {
+            suffix += lineHash(current.get(i)) * power;
+            power *= BASE;
+            suffixHashes[i] = suffix;
+        }
+        for (int i = Math.max(0, n - previous); i < n; i++) {
+            int length = n - i;
+            if (suffixHashes[i] == prefixHashes[length] && sameLines(current, i, length)) {
+                return i;
+            }
+        }
+        return 0;
+    }
+
+    private boolean sameLines(List<String> current, int from, int length) {
+        for (int j = 0; j < length; j++) {
+            if (!Objects.equals(current.get(from + j), lines.get(j))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static long[] prefixHashes(List<String> lines) {
+        long[] hashes = new long[lines.size() + 1];
+        for (int i = 0; i < lines.size(); i++) {
+            hashes[i + 1] = hashes[i] * BASE + lineHash(lines.get(i));
+        }
+        return hashes;
+    }
+
+    private static long lineHash(String line) {
+        if (line == null) {
+            return 1;
+        }
+        long h = line.hashCode() * 0x9E3779B97F4A7C15L + line.length();
+        return h ^ (h >>> 31);
+    }
+}
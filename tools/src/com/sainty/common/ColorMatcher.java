@@ -0,0 +1,249 @@
+package com.sainty.common;
+
+import com.osmb.api.ScriptCore;
+import com.osmb.api.shape.Rectangle;
+import com.osmb.api.shape.Shape;
+import com.osmb.api.visual.SearchablePixel;
+import com.osmb.api.visual.image.Image;
+
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
+
+/**
+ * Matches screen pixels against a palette with one table lookup per pixel.
+ * <p>
+ * The palette is compiled into a bitset over every 24-bit RGB value (2 MB), shared by every matcher with the
+ * same palette. A {@code SearchablePixel[]} palette ({@link #of}) is compiled by asking each pixel's own
+ * comparator, the one {@code findPixels} uses, about every RGB value once, so the table agrees with the API in
+ * any color model by construction. An RGB palette ({@link #rgb}) with a per-channel tolerance on 0-255, like an
+ * RGB {@code SingleThresholdComparator}, only visits the cube around each color. Call {@link #prepareAll()} from
+ * {@code onStart} once the script's matchers exist, so no table is built mid-run.
+ */
+public final class ColorMatcher {
+    private static final int WORDS = 1 << 18;
+    private static final Map<String, ColorMatcher> CACHE = new ConcurrentHashMap<>();
+    // Palettes are static arrays, so the array itself is the key
+    private static final Map<SearchablePixel[], ColorMatcher> PALETTES = Collections.synchronizedMap(new IdentityHashMap<>());
+
+    private final int tolerance;
+    private final int[] colors;
+    private final SearchablePixel[] palette;
+    private volatile long[] bits;
+
+    private ColorMatcher(int tolerance, int[] colors, SearchablePixel[] palette) {
+        this.tolerance = tolerance;
+        this.colors = colors;
+        this.palette = palette;
+    }
+
+    public static ColorMatcher rgb(int tolerance, int... colors) {
+        int[] sorted = new int[colors.length];
+        for (int i = 0; i < colors.length; i++) {
+            sorted[i] = colors[i] & 0xFFFFFF;
+        }
+        Arrays.sort(sorted);
+        String key = tolerance + ":" + Arrays.toString(sorted);
+        return CACHE.computeIfAbsent(key, k -> new ColorMatcher(tolerance, sorted, null));
+    }
+
+    /**
+     * A matcher that agrees with {@code findPixels(shape, palette)} pixel for pixel.
+     */
+    public static ColorMatcher of(SearchablePixel... palette) {
+        synchronized (PALETTES) {
+            return PALETTES.computeIfAbsent(palette, p -> new ColorMatcher(-1, null, p.clone()));
+        }
+    }
+
+    /**
+     * Builds the tables of every matcher created so far.
+     */
+    public static void prepareAll() {
+        for (ColorMatcher matcher : CACHE.values()) {
+            matcher.table();
+        }
+        List<ColorMatcher> palettes;
+        synchronized (PALETTES) {
+            palettes = new ArrayList<>(PALETTES.values());
+        }
+        for (ColorMatcher matcher : palettes) {
+            matcher.table();
+        }
+    }
+
+    /**
+     * Builds this matcher's table now rather than on the first lookup.
+     */
+    public ColorMatcher prepare() {
+        table();
+        return this;
+    }
+
+    /**
+     * The per-channel tolerance of an {@link #rgb} palette, or -1 for a {@link #of} palette.
+     */
+    public int getTolerance() {
+        return tolerance;
+    }
+
+    public boolean matches(int argb) {
+        int rgb = argb & 0xFFFFFF;
+        return (table()[rgb >>> 6] & (1L << rgb)) != 0;
+    }
+
+    /**
+     * Counts matches in a region of a packed pixel buffer laid out row by row, {@code scanline} pixels wide.
+     */
+    public int count(int[] pixels, int scanline, int x, int y, int width, int height) {
+        long[] table = table();
+        int count = 0;
+        for (int row = y; row < y + height; row++) {
+            int offset = row * scanline;
+            for (int col = x; col < x + width; col++) {
+                int rgb = pixels[offset + col] & 0xFFFFFF;
+                if ((table[rgb >>> 6] & (1L << rgb)) != 0) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Counts matching screen pixels inside the shape.
+     */
+    public int count(ScriptCore core, Shape shape) {
+        Image image = core.getScreen().getImage();
+        Rectangle area = clip(shape, image);
+        if (area == null) {
+            return 0;
+        }
+        long[] table = table();
+        boolean rectangular = shape instanceof Rectangle;
+        int count = 0;
+        for (int y = area.y; y < area.y + area.height; y++) {
+            for (int x = area.x; x < area.x + area.width; x++) {
+                int rgb = image.getRGB(x, y) & 0xFFFFFF;
+                if ((table[rgb >>> 6] & (1L << rgb)) != 0 && (rectangular || shape.contains(x, y))) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Same contract as {@code PixelAnalyzer.findPixels}: every matching screen pixel inside the shape, row by row.
+     */
+    public List<Point> find(ScriptCore core, Shape shape) {
+        List<Point> found = new ArrayList<>();
+        Image image = core.getScreen().getImage();
+        Rectangle area = clip(shape, image);
+        if (area == null) {
+            return found;
+        }
+        long[] table = table();
+        boolean rectangular = shape instanceof Rectangle;
+        for (int y = area.y; y < area.y + area.height; y++) {
+            for (int x = area.x; x < area.x + area.width; x++) {
+                int rgb = image.getRGB(x, y) & 0xFFFFFF;
+                if ((table[rgb >>> 6] & (1L << rgb)) != 0 && (rectangular || shape.contains(x, y))) {
+                    found.add(new Point(x, y));
+                }
+            }
+        }
+        return found;
+    }
+
+    static Rectangle clip(Shape shape, Image image) {
+        if (shape == null || image == null) {
+            return null;
+        }
+        Rectangle b = shape.getBounds();
+        if (b == null) {
+            return null;
+        }
+        int x0 = Math.max(0, b.x);
+        int y0 = Math.max(0, b.y);
+        int x1 = Math.min(image.getWidth(), b.x + b.width);
+        int y1 = Math.min(image.getHeight(), b.y + b.height);
+        if (x1 <= x0 || y1 <= y0) {
+            return null;
+        }
+        return new Rectangle(x0, y0, x1 - x0, y1 - y0);
+    }
+
+    long[] table() {
+        long[] t = bits;
+        if (t == null) {
+            synchronized (this) {
+                t = bits;
+                if (t == null) {
+                    t = build();
+                    bits = t;
+                }
+            }
+        }
+        return t;
+    }
+
+    private long[] build() {
+        return palette != null ? buildFromApi(palette) : buildCubes();
+    }
+
+    // Every RGB value goes through the API's comparator once; words are independent, so they are built in parallel
+    private static long[] buildFromApi(SearchablePixel[] palette) {
+        long[] t = new long[WORDS];
+        IntStream.range(0, WORDS).parallel().forEach(word -> {
+            long bitsOfWord = 0;
+            int base = word << 6;
+            for (int i = 0; i < 64; i++) {
+                if (apiMatches(palette, base | i)) {
+                    bitsOfWord |= 1L << i;
+                }
+            }
+            t[word] = bitsOfWord;
+        });
+        return t;
+    }
+
+    /**
+     * The comparison {@code findPixels} makes for one screen pixel against the palette, which the table replaces.
+     */
+    static boolean apiMatches(SearchablePixel[] palette, int argb) {
+        int rgb = argb | 0xFF000000;
+        for (SearchablePixel pixel : palette) {
+            if (pixel.getToleranceComparator().isWithinTolerance(pixel.getColorModel(), pixel.getRgb(), rgb)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // RGB tolerance is a cube around each color, so only the cube is visited
+    private long[] buildCubes() {
+        long[] t = new long[WORDS];
+        for (int color : colors) {
+            int r = (color >>> 16) & 0xFF;
+            int g = (color >>> 8) & 0xFF;
+            int b = color & 0xFF;
+            for (int rr = Math.max(0, r - tolerance); rr <= Math.min(255, r + tolerance); rr++) {
+                for (int gg = Math.max(0, g - tolerance); gg <= Math.min(255, g + tolerance); gg++) {
+                    int base = (rr << 16) | (gg << 8);
+                    for (int bb = Math.max(0, b - tolerance); bb <= Math.min(255, b + tolerance); bb++) {
+                        int rgb = base | bb;
+                        t[rgb >>> 6] |= 1L << rgb;
+                    }
+                }
+            }
+        }
+        return t;
+    }
+}
@@ -0,0 +1,149 @@
+package com.sainty.common;
+
+import com.osmb.api.ScriptCore;
+import com.osmb.api.item.ItemGroupResult;
+import com.osmb.api.location.position.types.WorldPosition;
+import com.osmb.api.ui.chatbox.dialogue.Dialogue;
+import com.osmb.api.utils.UIResultList;
+
+import java.util.Set;
+
+/**
+ * Memoizes the screen reads a poll makes over and over, for the lifetime of one game frame.
+ * <p>
+ * Call {@link #onNewFrame()} from the script's {@code onNewFrame} and everything cached is dropped.
+ * Inventory searches are answered from any earlier search in the same frame whose id set is a superset,
+ * so searching the union of a script's ids once makes every later single-item lookup free.
+ * Call {@link #invalidate()} after an action that changes the screen within the same frame.
+ */
+public final class FrameSnapshot implements TelemetrySource {
+    private static final int MAX_SEARCHES = 8;
+
+    private final ScriptCore script;
+    private volatile long frame;
+
+    private long cachedFrame = -1;
+    private int searchCount;
+    private final Set<?>[] searchIds = new Set<?>[MAX_SEARCHES];
+    private final ItemGroupResult[] searchResults = new ItemGroupResult[MAX_SEARCHES];
+    private boolean hasPosition;
+    private WorldPosition position;
+    private boolean hasNpcPositions;
+    private UIResultList<WorldPosition> npcPositions;
+    private boolean hasDialogue;
+    private boolean dialogueVisible;
+
+    private long hits;
+    private long misses;
+
+    public FrameSnapshot(ScriptCore script) {
+        this.script = script;
+    }
+
+    public void onNewFrame() {
+        frame++;
+    }
+
+    public long getFrame() {
+        return frame;
+    }
+
+    public void invalidate() {
+        cachedFrame = -1;
+    }
+
+    public ItemGroupResult search(Set<Integer> ids) {
+        sync();
+        for (int i = 0; i < searchCount; i++) {
+            if (searchIds[i].containsAll(ids)) {
+                hits++;
+                return searchResults[i];
+            }
+        }
+        misses++;
+        ItemGroupResult result = script.getWidgetManager().getInventory().search(ids);
+        if (searchCount == MAX_SEARCHES) {
+            searchCount = 0;
+        }
+        searchIds[searchCount] = ids;
+        searchResults[searchCount] = result;
+        searchCount++;
+        return result;
+    }
+
+    public WorldPosition getWorldPosition() {
+        sync();
+        if (hasPosition) {
+            hits++;
+            return position;
+        }
+        misses++;
+        position = script.getWorldPosition();
+        hasPosition = true;
+        return position;
+    }
+
+    public UIResultList<WorldPosition> getNPCPositions() {
+        sync();
+        if (hasNpcPositions) {
+            hits++;
+            return npcPositions;
+        }
+        misses++;
+        npcPositions = script.getWidgetManager().getMinimap().getNPCPositions();
+        hasNpcPositions = true;
+        return npcPositions;
+    }
+
+    public boolean isDialogueVisible() {
+        sync();
+        if (hasDialogue) {
+            hits++;
+            return dialogueVisible;
+        }
+        misses++;
+        Dialogue dialogue = script.getWidgetManager().getDialogue();
+        dialogueVisible = dialogue != null && dialogue.isVisible();
+        hasDialogue = true;
+        return dialogueVisible;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public long getMisses() {
+        return misses;
+    }
+
+    @Override
+    public void drainTo(Sink sink) {
+        long total = hits + misses;
+        if (total == 0) {
+            return;
+        }
+        sink.count("frame_cache_hits", hits);
+        sink.count("frame_cache_misses", misses);
+        sink.gauge("frame_cache_hit_pct", hits * 100 / total);
+        hits = 0;
+        misses = 0;
+    }
+
+    private void sync() {
+        long current = frame;
+        if (current == cachedFrame) {
+            return;
+        }
+        cachedFrame = current;
+        for (int i = 0; i < searchCount; i++) {
+            searchIds[i] = null;
+            searchResults[i] = null;
+        }
+        searchCount = 0;
+        hasPosition = false;
+        position = null;
+        hasNpcPositions = false;
+        npcPositions = null;
+        hasDialogue = false;
+    }
+}
@@ -0,0 +1,126 @@
+package com.sainty.common;
+
+import com.osmb.api.ScriptCore;
+import com.osmb.api.item.ItemGroupResult;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Reads the amounts of a fixed set of items with a single inventory search.
+ * <p>
+ * Build one per script with the union of every id it cares about, call {@link #refresh} once per poll,
+ * then read {@link #amount(int)} as often as needed. Amounts live in a primitive open-addressed table,
+ * so lookups are O(1) and never box.
+ */
+public final class InventoryQuery {
+    private static final int EMPTY = Integer.MIN_VALUE;
+
+    private final Set<Integer> idSet;
+    private final int[] ids;
+    private final int[] amounts;
+    private final int[] tableKeys;
+    private final int[] tableSlots;
+    private final int mask;
+    private ItemGroupResult result;
+
+    /**
+     * Non-positive ids, as used for "not configured", are left out of the search and read as 0.
+     */
+    public InventoryQuery(int... ids) {
+        Set<Integer> unique = new LinkedHashSet<>();
+        for (int id : ids) {
+            if (id > 0) {
+                unique.add(id);
+            }
+        }
+        this.idSet = Collections.unmodifiableSet(unique);
+        this.ids = new int[unique.size()];
+        int i = 0;
+        for (int id : unique) {
+            this.ids[i++] = id;
+        }
+        this.amounts = new int[this.ids.length];
+
+        int capacity = Integer.highestOneBit(Math.max(2, this.ids.length * 2 - 1)) << 1;
+        this.mask = capacity - 1;
+        this.tableKeys = new int[capacity];
+        this.tableSlots = new int[capacity];
+        Arrays.fill(tableKeys, EMPTY);
+        for (int slot = 0; slot < this.ids.length; slot++) {
+            int h = mix(this.ids[slot]) & mask;
+            while (tableKeys[h] != EMPTY) {
+                h = (h + 1) & mask;
+            }
+            tableKeys[h] = this.ids[slot];
+            tableSlots[h] = slot;
+        }
+    }
+
+    public Set<Integer> getIds() {
+        return idSet;
+    }
+
+    /**
+     * Runs the one search for every id. Returns false if the inventory couldn't be read, in which case
+     * every amount reads as 0.
+     */
+    public boolean refresh(ScriptCore core) {
+        return apply(core.getWidgetManager().getInventory().search(idSet));
+    }
+
+    /**
+     * Same as {@link #refresh(ScriptCore)}, but shares the frame's search with other readers.
+     */
+    public boolean refresh(FrameSnapshot frame) {
+        return apply(frame.search(idSet));
+    }
+
+    public int amount(int id) {
+        int h = mix(id) & mask;
+        while (true) {
+            int key = tableKeys[h];
+            if (key == id) {
+                return amounts[tableSlots[h]];
+            }
+            if (key == EMPTY) {
+                return 0;
+            }
+            h = (h + 1) & mask;
+        }
+    }
+
+    public boolean contains(int id) {
+        return amount(id) > 0;
+    }
+
+    public boolean isVisible() {
+        return result != null;
+    }
+
+    /**
+     * The raw result of the last refresh, for slot or selection lookups. Null if the inventory wasn't visible.
+     */
+    public ItemGroupResult getResult() {
+        return result;
+    }
+
+    private boolean apply(ItemGroupResult inv) {
+        result = inv;
+        if (inv == null) {
+            Arrays.fill(amounts, 0);
+            return false;
+        }
+        for (int i = 0; i < ids.length; i++) {
+            amounts[i] = inv.getAmount(ids[i]);
+        }
+        return true;
+    }
+
+    private static int mix(int id) {
+        int h = id * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
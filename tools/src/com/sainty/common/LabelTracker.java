@@ -0,0 +1,227 @@
+package com.sainty.common;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Follows on-screen text labels from one scan to the next so each one only has to be read once.
+ * <p>
+ * Every label box gets a track. Call {@link #update(int[])} once per scan; boxes are matched to the track
+ * whose predicted center (last center plus last movement) is nearest, within the gate distance. A track needs
+ * reading when it is new, has no text yet, has drifted more than the move tolerance from where it was last
+ * read, or hasn't been read for a set number of matched scans, since another label can take the same spot.
+ * Tracks that go unmatched can be kept alive by {@link #confirm(Track)}, e.g. after a cheap color count at
+ * their predicted position, but only for a few scans in a row; they are dropped after too many misses.
+ * <p>
+ * Not thread-safe. Update and read from the script thread.
+ */
+public final class LabelTracker {
+    private final int gate;
+    private final int moveTolerance;
+    private final int maxMisses;
+    private final int maxConfirms;
+    private final int rereadEvery;
+    private final List<Track> tracks = new ArrayList<>();
+    private int nextId = 1;
+
+    /**
+     * @param maxConfirms scans in a row an unmatched track can be kept alive by {@link #confirm(Track)}
+     * @param rereadEvery matched scans after which a track is read again even if it hasn't moved
+     */
+    public LabelTracker(int gate, int moveTolerance, int maxMisses, int maxConfirms, int rereadEvery) {
+        this.gate = gate;
+        this.moveTolerance = moveTolerance;
+        this.maxMisses = maxMisses;
+        this.maxConfirms = maxConfirms;
+        this.rereadEvery = rereadEvery;
+    }
+
+    public static final class Track {
+        private final int id;
+        private int x;
+        private int y;
+        private int width;
+        private int height;
+        private int dx;
+        private int dy;
+        private int readCenterX;
+        private int readCenterY;
+        private String label;
+        private int hits;
+        private int misses;
+        private int confirms;
+        private int sinceRead;
+        private boolean matched;
+
+        private Track(int id, int x, int y, int width, int height) {
+            this.id = id;
+            this.x = x;
+            this.y = y;
+            this.width = width;
+            this.height = height;
+        }
+
+        public int getId() {
+            return id;
+        }
+
+        public int getX() {
+            return x;
+        }
+
+        public int getY() {
+            return y;
+        }
+
+        public int getWidth() {
+            return width;
+        }
+
+        public int getHeight() {
+            return height;
+        }
+
+        /**
+         * Where the box is expected on the next scan, assuming it keeps moving as it last did.
+         */
+        public int getPredictedX() {
+            return x + dx;
+        }
+
+        public int getPredictedY() {
+            return y + dy;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+
+        public int getHits() {
+            return hits;
+        }
+
+        /**
+         * True if the last update matched this track to a box.
+         */
+        public boolean isMatched() {
+            return matched;
+        }
+
+        private int centerX() {
+            return x + width / 2;
+        }
+
+        private int centerY() {
+            return y + height / 2;
+        }
+    }
+
+    /**
+     * Matches the boxes, packed as {@code x, y, width, height} quadruples, to tracks. Returns the track for
+     * each box, in box order; unmatched boxes start new tracks.
+     */
+    public List<Track> update(int[] boxes) {
+        for (Track t : tracks) {
+            t.matched = false;
+        }
+        int count = boxes.length / 4;
+        List<Track> result = new ArrayList<>(count);
+        for (int b = 0; b < count; b++) {
+            int bx = boxes[b * 4];
+            int by = boxes[b * 4 + 1];
+            int bw = boxes[b * 4 + 2];
+            int bh = boxes[b * 4 + 3];
+            int cx = bx + bw / 2;
+            int cy = by + bh / 2;
+
+            Track best = null;
+            long bestDistance = (long) gate * gate;
+            for (Track t : tracks) {
+                if (t.matched) {
+                    continue;
+                }
+                long ddx = cx - (t.centerX() + t.dx);
+                long ddy = cy - (t.centerY() + t.dy);
+                long distance = ddx * ddx + ddy * ddy;
+                if (distance <= bestDistance) {
+                    bestDistance = distance;
+                    best = t;
+                }
+            }
+
+            if (best == null) {
+                best = new Track(nextId++, bx, by, bw, bh);
+                tracks.add(best);
+            } else {
+                best.dx = cx - best.centerX();
+                best.dy = cy - best.centerY();
+                best.x = bx;
+                best.y = by;
+                best.width = bw;
+                best.height = bh;
+            }
+            best.matched = true;
+            best.hits++;
+            best.misses = 0;
+            best.confirms = 0;
+            best.sinceRead++;
+            result.add(best);
+        }
+
+        for (Track t : tracks) {
+            if (!t.matched) {
+                t.misses++;
+            }
+        }
+        tracks.removeIf(t -> t.misses > maxMisses);
+        return result;
+    }
+
+    public boolean needsRead(Track track) {
+        if (track.label == null || track.sinceRead >= rereadEvery) {
+            return true;
+        }
+        return Math.abs(track.centerX() - track.readCenterX) > moveTolerance
+                || Math.abs(track.centerY() - track.readCenterY) > moveTolerance;
+    }
+
+    /**
+     * Records what was read for the track at its current position. A null label means nothing usable was
+     * read; the track is read again on its next update.
+     */
+    public void setLabel(Track track, String label) {
+        if (track.label != null && label != null && !label.equals(track.label)) {
+            // A different label in the same place: its count starts over
+            track.hits = 1;
+        }
+        track.label = label;
+        track.sinceRead = 0;
+        track.readCenterX = track.centerX();
+        track.readCenterY = track.centerY();
+    }
+
+    /**
+     * Keeps an unmatched track alive, e.g. when its color is still present at the predicted position. Returns
+     * false, leaving the miss counted, once the track has been kept alive this way too many scans in a row.
+     */
+    public boolean confirm(Track track) {
+        if (track.confirms >= maxConfirms) {
+            return false;
+        }
+        track.confirms++;
+        track.misses = 0;
+        return true;
+    }
+
+    /**
+     * Live tracks, oldest first.
+     */
+    public List<Track> getTracks() {
+        return Collections.unmodifiableList(tracks);
+    }
+
+    public void clear() {
+        tracks.clear();
+    }
+}
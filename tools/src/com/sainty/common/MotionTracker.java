@@ -0,0 +1,145 @@
+package com.sainty.common;
+
+import com.osmb.api.ScriptCore;
+import com.osmb.api.location.area.Area;
+import com.osmb.api.location.position.types.WorldPosition;
+
+/**
+ * The player's position sampled once per game frame into a fixed-size ring, for movement and stability checks
+ * without each script keeping its own timestamps and reading the position again.
+ * <p>
+ * Call {@link #onNewFrame()} from the script's {@code onNewFrame}. Stationary time, the current position and the
+ * total distance are kept as running values, so those answers are constant time. Windowed distance and speed
+ * find the window's first sample by binary search over the ring ({@value #DEFAULT_CAPACITY} samples, a few
+ * seconds of frames), then subtract running totals. A frame where the position can't be read clears the
+ * position until it can be read again, and an unknown position never counts as stationary. Once it is read again,
+ * travel and the stationary time carry on from the last position that was read.
+ * Sampled on the frame thread and read from the script thread, so access is synchronized.
+ */
+public final class MotionTracker {
+    private static final int DEFAULT_CAPACITY = 256;
+
+    private final ScriptCore script;
+    private final int mask;
+    private final long[] times;
+    private final double[] travelled;
+    private long count;
+
+    private WorldPosition position;
+    private WorldPosition lastKnown;
+    private long sampledAt;
+    private long lastChangeAt;
+    private double totalTravelled;
+
+    public MotionTracker(ScriptCore script) {
+        this(script, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param capacity samples kept, rounded up to a power of two
+     */
+    public MotionTracker(ScriptCore script, int capacity) {
+        this.script = script;
+        int size = Integer.highestOneBit(Math.max(1, capacity - 1)) << 1;
+        this.mask = size - 1;
+        this.times = new long[size];
+        this.travelled = new double[size];
+    }
+
+    public void onNewFrame() {
+        record(script.getWorldPosition(), System.currentTimeMillis());
+    }
+
+    synchronized void record(WorldPosition current, long now) {
+        if (current == null) {
+            position = null;
+            return;
+        }
+        if (lastKnown != null && !current.equals(lastKnown) && current.getPlane() == lastKnown.getPlane()) {
+            long dx = current.getX() - lastKnown.getX();
+            long dy = current.getY() - lastKnown.getY();
+            totalTravelled += Math.sqrt(dx * dx + dy * dy);
+        }
+        // Compared with the last tile read, so a frame that couldn't be read doesn't restart the stationary clock
+        if (lastKnown == null || !current.equals(lastKnown)) {
+            lastChangeAt = now;
+        }
+        position = current;
+        lastKnown = current;
+        sampledAt = now;
+        int i = (int) (count & mask);
+        times[i] = now;
+        travelled[i] = totalTravelled;
+        count++;
+    }
+
+    /**
+     * The position sampled on the latest frame, or null if it couldn't be read on that frame.
+     */
+    public synchronized WorldPosition getPosition() {
+        return position;
+    }
+
+    /**
+     * How long the player has been on the current tile, or 0 if the position couldn't be read on the latest frame.
+     */
+    public synchronized long getStationaryMs() {
+        return position == null ? 0 : System.currentTimeMillis() - lastChangeAt;
+    }
+
+    public boolean isStationaryFor(long ms) {
+        return getStationaryMs() >= ms;
+    }
+
+    /**
+     * True if the player is in the area and hasn't left their tile for at least {@code ms}.
+     */
+    public synchronized boolean isStuckIn(Area area, long ms) {
+        return position != null && area.contains(position) && System.currentTimeMillis() - lastChangeAt >= ms;
+    }
+
+    /**
+     * Straight-line tiles moved since tracking began, counting each tile change.
+     */
+    public synchronized double getDistanceTravelled() {
+        return totalTravelled;
+    }
+
+    /**
+     * Tiles moved in the last {@code windowMs}, or since the oldest sample kept if that is more recent.
+     */
+    public synchronized double getDistanceTravelled(long windowMs) {
+        int first = firstSampleAfter(sampledAt - windowMs);
+        return first < 0 ? 0 : totalTravelled - travelled[first];
+    }
+
+    /**
+     * Average speed in tiles per second over the last {@code windowMs}.
+     */
+    public synchronized double getTilesPerSecond(long windowMs) {
+        int first = firstSampleAfter(sampledAt - windowMs);
+        if (first < 0) {
+            return 0;
+        }
+        long span = sampledAt - times[first];
+        return span <= 0 ? 0 : (totalTravelled - travelled[first]) * 1000.0 / span;
+    }
+
+    // Ring slot of the oldest kept sample taken at or after the cutoff, or -1 if nothing is kept
+    private int firstSampleAfter(long cutoff) {
+        if (count == 0) {
+            return -1;
+        }
+        long lo = Math.max(0, count - times.length);
+        long hi = count - 1;
+        while (lo < hi) {
+            long mid = (lo + hi) >>> 1;
+            if (times[(int) (mid & mask)] < cutoff) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return (int) (lo & mask);
+    }
+}
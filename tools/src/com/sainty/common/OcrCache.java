@@ -0,0 +1,175 @@
+package com.sainty.common;
+
+import com.osmb.api.ScriptCore;
+import com.osmb.api.shape.Rectangle;
+import com.osmb.api.visual.image.Image;
+import com.osmb.api.visual.ocr.fonts.Font;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.IntBinaryOperator;
+
+/**
+ * Memoizes OCR by what is on screen: results are keyed by font, text colors and a 64-bit hash of the
+ * region's pixels, so the same content is never read twice, wherever it is drawn.
+ * <p>
+ * Hashing a region touches each pixel once with a multiply and a rotate, spread over four independent lanes,
+ * which costs less than the color-mask pass OCR starts with, let alone the glyph matching after it.
+ * Entries are evicted least recently used. Safe to share between threads.
+ */
+public final class OcrCache implements TelemetrySource {
+    private static final int DEFAULT_CAPACITY = 256;
+    private static final long SEED = 0x9E3779B97F4A7C15L;
+    private static final long PRIME = 0xC2B2AE3D27D4EB4FL;
+    private static final Object NO_TEXT = new Object();
+    private static final OcrCache SHARED = new OcrCache(DEFAULT_CAPACITY);
+
+    private final Map<Key, Object> entries;
+    private long hits;
+    private long misses;
+
+    public OcrCache(int capacity) {
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Object> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    public static OcrCache shared() {
+        return SHARED;
+    }
+
+    /**
+     * Same as {@code getOCR().getText(font, bounds, colors)}, answered from the cache when the region's
+     * pixels haven't changed.
+     */
+    public String getText(ScriptCore core, Font font, Rectangle bounds, int... colors) {
+        Image image = core.getScreen().getImage();
+        if (image == null || bounds == null) {
+            return core.getOCR().getText(font, bounds, colors);
+        }
+        Key key = new Key(font, colors, hash(image, bounds), bounds.width, bounds.height);
+        synchronized (this) {
+            Object cached = entries.get(key);
+            if (cached != null) {
+                hits++;
+                return cached == NO_TEXT ? null : (String) cached;
+            }
+            misses++;
+        }
+        String text = core.getOCR().getText(font, bounds, colors);
+        synchronized (this) {
+            entries.put(key, text == null ? NO_TEXT : text);
+        }
+        return text;
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    @Override
+    public void drainTo(Sink sink) {
+        long h;
+        long m;
+        synchronized (this) {
+            h = hits;
+            m = misses;
+            hits = 0;
+            misses = 0;
+        }
+        if (h + m == 0) {
+            return;
+        }
+        sink.count("ocr_cache_hits", h);
+        sink.count("ocr_cache_misses", m);
+        sink.gauge("ocr_cache_hit_pct", h * 100 / (h + m));
+    }
+
+    static long hash(Image image, Rectangle bounds) {
+        int x0 = Math.max(0, bounds.x);
+        int y0 = Math.max(0, bounds.y);
+        int x1 = Math.min(image.getWidth(), bounds.x + bounds.width);
+        int y1 = Math.min(image.getHeight(), bounds.y + bounds.height);
+        return hash(image::getRGB, x0, y0, Math.max(0, x1 - x0), Math.max(0, y1 - y0));
+    }
+
+    static long hash(IntBinaryOperator pixels, int x, int y, int width, int height) {
+        long a = SEED;
+        long b = SEED + 1;
+        long c = SEED + 2;
+        long d = SEED + 3;
+        for (int row = y; row < y + height; row++) {
+            int col = x;
+            int end = x + width;
+            for (; col + 3 < end; col += 4) {
+                a = mix(a, pixels.applyAsInt(col, row));
+                b = mix(b, pixels.applyAsInt(col + 1, row));
+                c = mix(c, pixels.applyAsInt(col + 2, row));
+                d = mix(d, pixels.applyAsInt(col + 3, row));
+            }
+            for (; col < end; col++) {
+                a = mix(a, pixels.applyAsInt(col, row));
+            }
+        }
+        return finish(a, b, c, d, width, height);
+    }
+
+    // Four independent lanes keep the multiplies from waiting on each other
+    private static long mix(long h, int pixel) {
+        return Long.rotateLeft(h + pixel * PRIME, 31) * SEED;
+    }
+
+    private static long finish(long a, long b, long c, long d, int width, int height) {
+        long h = Long.rotateLeft(a, 1) + Long.rotateLeft(b, 7) + Long.rotateLeft(c, 12) + Long.rotateLeft(d, 18);
+        h ^= ((long) width << 32) | height;
+        h ^= h >>> 33;
+        h *= PRIME;
+        return h ^ (h >>> 29);
+    }
+
+    private static final class Key {
+        final Font font;
+        final int[] colors;
+        final long pixels;
+        final int width;
+        final int height;
+        final int hash;
+
+        Key(Font font, int[] colors, long pixels, int width, int height) {
+            this.font = font;
+            this.colors = colors == null ? new int[0] : colors.clone();
+            this.pixels = pixels;
+            this.width = width;
+            this.height = height;
+            this.hash = 31 * (31 * (31 * font.hashCode() + Arrays.hashCode(this.colors)) + Long.hashCode(pixels))
+                    + width * 65_537 + height;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key k = (Key) o;
+            return pixels == k.pixels && width == k.width && height == k.height
+                    && font.equals(k.font) && Arrays.equals(colors, k.colors);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.sainty.common;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntConsumer;
+
+/**
+ * Finds every one of a fixed set of phrases in a line of text in a single pass, ignoring case
+ * (Aho-Corasick). Matching time depends on the line length only, not on how many phrases there are.
+ * <p>
+ * Phrases are compiled once into a table-driven automaton over the characters they use; any other
+ * character sends the search back to the start. Immutable and safe to share between threads.
+ */
+public final class PhraseMatcher {
+    private final List<String> phrases;
+    private final int[] ascii = new int[128];
+    private final Map<Character, Integer> other = new HashMap<>();
+    private final int symbols;
+    private final int[] next;
+    private final int[][] outputs;
+
+    public PhraseMatcher(List<String> phrases) {
+        this.phrases = List.copyOf(phrases);
+
+        // Character classes: 0 for anything no phrase contains, 1.. for the rest
+        int count = 1;
+        for (String phrase : this.phrases) {
+            for (int i = 0; i < phrase.length(); i++) {
+                char c = Character.toLowerCase(phrase.charAt(i));
+                if (symbolOf(c) == 0) {
+                    if (c < 128) {
+                        ascii[c] = count++;
+                    } else {
+                        other.put(c, count++);
+                    }
+                }
+            }
+        }
+        this.symbols = count;
+
+        // Trie
+        List<int[]> edges = new ArrayList<>();
+        List<List<Integer>> out = new ArrayList<>();
+        edges.add(new int[symbols]);
+        out.add(new ArrayList<>());
+        for (int p = 0; p < this.phrases.size(); p++) {
+            String phrase = this.phrases.get(p);
+            int state = 0;
+            for (int i = 0; i < phrase.length(); i++) {
+                int symbol = symbolOf(Character.toLowerCase(phrase.charAt(i)));
+                if (edges.get(state)[symbol] == 0) {
+                    edges.get(state)[symbol] = edges.size();
+                    edges.add(new int[symbols]);
+                    out.add(new ArrayList<>());
+                }
+                state = edges.get(state)[symbol];
+            }
+            out.get(state).add(p);
+        }
+
+        // Breadth-first failure links, folded into a complete transition table
+        int states = edges.size();
+        int[] table = new int[states * symbols];
+        int[] fail = new int[states];
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        for (int s = 0; s < symbols; s++) {
+            int child = edges.get(0)[s];
+            table[s] = child;
+            if (child != 0) {
+                queue.add(child);
+            }
+        }
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            out.get(state).addAll(out.get(fail[state]));
+            for (int s = 0; s < symbols; s++) {
+                int child = edges.get(state)[s];
+                if (child != 0) {
+                    fail[child] = table[fail[state] * symbols + s];
+                    table[state * symbols + s] = child;
+                    queue.add(child);
+                } else {
+                    table[state * symbols + s] = table[fail[state] * symbols + s];
+                }
+            }
+        }
+        this.next = table;
+        this.outputs = new int[states][];
+        for (int i = 0; i < states; i++) {
+            this.outputs[i] = out.get(i).stream().mapToInt(Integer::intValue).toArray();
+        }
+    }
+
+    public static PhraseMatcher of(String... phrases) {
+        return new PhraseMatcher(Arrays.asList(phrases));
+    }
+
+    public List<String> getPhrases() {
+        return phrases;
+    }
+
+    /**
+     * Reports the index of each phrase found in the text, once per occurrence, in the order they end.
+     */
+    public void forEachMatch(CharSequence text, IntConsumer phraseIndex) {
+        int state = 0;
+        for (int i = 0; i < text.length(); i++) {
+            state = next[state * symbols + symbolOf(Character.toLowerCase(text.charAt(i)))];
+            for (int p : outputs[state]) {
+                phraseIndex.accept(p);
+            }
+        }
+    }
+
+    public boolean matches(CharSequence text) {
+        int state = 0;
+        for (int i = 0; i < text.length(); i++) {
+            state = next[state * symbols + symbolOf(Character.toLowerCase(text.charAt(i)))];
+            if (outputs[state].length > 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int symbolOf(char c) {
+        return c < 128 ? ascii[c] : other.getOrDefault(c, 0);
+    }
+}
@@ -0,0 +1,206 @@
+package com.sainty.common;
+
+import java.awt.Point;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Groups matched pixels into bounding boxes: each pixel joins the first box (in creation order) whose
+ * edges are within the merge distance on both axes, otherwise it starts a new box.
+ * <p>
+ * Boxes are indexed in a grid of merge-distance cells covering their reach, so a pixel only tests the
+ * boxes registered in its own cell instead of every box found so far. Bounds live in primitive arrays
+ * and results come back packed as {@code x, y, width, height} quadruples.
+ */
+public final class PixelClusterer {
+    private PixelClusterer() {
+    }
+
+    public static int[] cluster(List<Point> pixels, int mergeDistance) {
+        int n = pixels.size();
+        int[] xs = new int[n];
+        int[] ys = new int[n];
+        for (int i = 0; i < n; i++) {
+            Point p = pixels.get(i);
+            xs[i] = p.x;
+            ys[i] = p.y;
+        }
+        return cluster(xs, ys, n, mergeDistance);
+    }
+
+    public static int[] cluster(int[] xs, int[] ys, int n, int mergeDistance) {
+        if (n == 0) {
+            return new int[0];
+        }
+        int d = Math.max(0, mergeDistance);
+        int minX = Integer.MAX_VALUE;
+        int minY = Integer.MAX_VALUE;
+        int maxX = Integer.MIN_VALUE;
+        int maxY = Integer.MIN_VALUE;
+        for (int i = 0; i < n; i++) {
+            minX = Math.min(minX, xs[i]);
+            minY = Math.min(minY, ys[i]);
+            maxX = Math.max(maxX, xs[i]);
+            maxY = Math.max(maxY, ys[i]);
+        }
+        Grid grid = new Grid(minX, minY, maxX, maxY, d + 1);
+
+        // Box bounds: left/top inclusive, right/bottom exclusive, as Rectangle(x, y, 1, 1).union(...)
+        int[] left = new int[16];
+        int[] top = new int[16];
+        int[] right = new int[16];
+        int[] bottom = new int[16];
+        int boxes = 0;
+
+        for (int i = 0; i < n; i++) {
+            int px = xs[i];
+            int py = ys[i];
+            int target = -1;
+            int[] candidates = grid.cell(px, py);
+            int size = grid.size(px, py);
+            for (int c = 0; c < size; c++) {
+                int b = candidates[c];
+                if (Math.max(left[b] - px, px - right[b]) <= d
+                        && Math.max(top[b] - py, py - bottom[b]) <= d) {
+                    target = b;
+                    break;
+                }
+            }
+
+            if (target < 0) {
+                if (boxes == left.length) {
+                    left = Arrays.copyOf(left, boxes * 2);
+                    top = Arrays.copyOf(top, boxes * 2);
+                    right = Arrays.copyOf(right, boxes * 2);
+                    bottom = Arrays.copyOf(bottom, boxes * 2);
+                }
+                left[boxes] = px;
+                top[boxes] = py;
+                right[boxes] = px + 1;
+                bottom[boxes] = py + 1;
+                grid.register(boxes, px - d, py - d, px + 1 + d, py + 1 + d, 0, 0, -1, -1);
+                boxes++;
+                continue;
+            }
+
+            int oldLeft = left[target];
+            int oldTop = top[target];
+            int oldRight = right[target];
+            int oldBottom = bottom[target];
+            int newLeft = Math.min(oldLeft, px);
+            int newTop = Math.min(oldTop, py);
+            int newRight = Math.max(oldRight, px + 1);
+            int newBottom = Math.max(oldBottom, py + 1);
+            if (newLeft != oldLeft || newTop != oldTop || newRight != oldRight || newBottom != oldBottom) {
+                left[target] = newLeft;
+                top[target] = newTop;
+                right[target] = newRight;
+                bottom[target] = newBottom;
+                grid.register(target, newLeft - d, newTop - d, newRight + d, newBottom + d,
+                        oldLeft - d, oldTop - d, oldRight + d, oldBottom + d);
+            }
+        }
+
+        int[] out = new int[boxes * 4];
+        for (int b = 0; b < boxes; b++) {
+            out[b * 4] = left[b];
+            out[b * 4 + 1] = top[b];
+            out[b * 4 + 2] = right[b] - left[b];
+            out[b * 4 + 3] = bottom[b] - top[b];
+        }
+        return out;
+    }
+
+    /**
+     * Dense grid over the pixels' bounds. Each cell lists, in creation order, the boxes whose reach overlaps it;
+     * a box's reach only ever grows, so registering the newly covered cells keeps every list complete.
+     */
+    private static final class Grid {
+        private static final int[] EMPTY = new int[0];
+
+        private final int originX;
+        private final int originY;
+        private final int cellSize;
+        private final int columns;
+        private final int rows;
+        private final int[][] cells;
+        private final int[] sizes;
+
+        Grid(int minX, int minY, int maxX, int maxY, int cellSize) {
+            this.originX = minX;
+            this.originY = minY;
+            this.cellSize = cellSize;
+            this.columns = (maxX - minX) / cellSize + 1;
+            this.rows = (maxY - minY) / cellSize + 1;
+            this.cells = new int[columns * rows][];
+            this.sizes = new int[columns * rows];
+        }
+
+        int[] cell(int x, int y) {
+            int[] ids = cells[index(x, y)];
+            return ids == null ? EMPTY : ids;
+        }
+
+        int size(int x, int y) {
+            return sizes[index(x, y)];
+        }
+
+        /**
+         * Adds the box to every cell overlapping [x0, x1] x [y0, y1] that wasn't already in the old reach.
+         */
+        void register(int box, int x0, int y0, int x1, int y1, int oldX0, int oldY0, int oldX1, int oldY1) {
+            int c0 = column(x0);
+            int c1 = column(x1);
+            int r0 = row(y0);
+            int r1 = row(y1);
+            if (oldX1 < oldX0) {
+                add(box, r0, r1, c0, c1);
+                return;
+            }
+            int oc0 = column(oldX0);
+            int oc1 = column(oldX1);
+            int or0 = row(oldY0);
+            int or1 = row(oldY1);
+            // The new reach contains the old one, so the difference is at most four strips
+            add(box, r0, or0 - 1, c0, c1);
+            add(box, or1 + 1, r1, c0, c1);
+            add(box, or0, or1, c0, oc0 - 1);
+            add(box, or0, or1, oc1 + 1, c1);
+        }
+
+        private void add(int box, int r0, int r1, int c0, int c1) {
+            for (int r = r0; r <= r1; r++) {
+                for (int c = c0; c <= c1; c++) {
+                    int i = r * columns + c;
+                    int[] ids = cells[i];
+                    if (ids == null) {
+                        ids = new int[4];
+                        cells[i] = ids;
+                    } else if (sizes[i] == ids.length) {
+                        ids = Arrays.copyOf(ids, ids.length * 2);
+                        cells[i] = ids;
+                    }
+                    // Older boxes can grow into a cell after newer ones; keep ids sorted so the first hit wins
+                    int at = sizes[i]++;
+                    while (at > 0 && ids[at - 1] > box) {
+                        ids[at] = ids[at - 1];
+                        at--;
+                    }
+                    ids[at] = box;
+                }
+            }
+        }
+
+        private int index(int x, int y) {
+            return row(y) * columns + column(x);
+        }
+
+        private int column(int x) {
+            return Math.max(0, Math.min(columns - 1, Math.floorDiv(x - originX, cellSize)));
+        }
+
+        private int row(int y) {
+            return Math.max(0, Math.min(rows - 1, Math.floorDiv(y - originY, cellSize)));
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.sainty.common;
+
+import com.osmb.api.ScriptCore;
+import com.osmb.api.shape.Rectangle;
+import com.osmb.api.shape.Shape;
+import com.osmb.api.visual.image.Image;
+
+import java.util.function.IntBinaryOperator;
+
+/**
+ * Presence checks for "at least N matching pixels" that stop scanning once the threshold is reached
+ * and never allocate points.
+ * <p>
+ * With a stride above 1, a sparse grid of every stride-th pixel in both directions is scanned first.
+ * Colors that fill an area reach the threshold on the grid alone; otherwise the remaining pixels are
+ * scanned too, so the answer is always the same as a full count.
+ */
+public final class PixelCounter {
+    public static final int DEFAULT_STRIDE = 3;
+
+    private PixelCounter() {
+    }
+
+    public static boolean atLeast(ScriptCore core, Shape shape, ColorMatcher palette, int n) {
+        return atLeast(core, shape, palette, n, 1);
+    }
+
+    public static boolean atLeast(ScriptCore core, Shape shape, ColorMatcher palette, int n, int stride) {
+        if (n <= 0) {
+            return true;
+        }
+        Image image = core.getScreen().getImage();
+        Rectangle area = ColorMatcher.clip(shape, image);
+        if (area == null) {
+            return false;
+        }
+        Shape mask = shape instanceof Rectangle ? null : shape;
+        return atLeast(image::getRGB, mask, area.x, area.y, area.width, area.height, palette, n, stride);
+    }
+
+    static boolean atLeast(IntBinaryOperator pixels, Shape mask, int x, int y, int width, int height,
+                           ColorMatcher palette, int n, int stride) {
+        long[] table = palette.table();
+        int count = 0;
+        if (stride > 1) {
+            for (int row = y; row < y + height; row += stride) {
+                for (int col = x; col < x + width; col += stride) {
+                    if (hit(table, pixels.applyAsInt(col, row)) && (mask == null || mask.contains(col, row))
+                            && ++count >= n) {
+                        return true;
+                    }
+                }
+            }
+        }
+        for (int row = y; row < y + height; row++) {
+            boolean sampledRow = stride > 1 && (row - y) % stride == 0;
+            for (int col = x; col < x + width; col++) {
+                if (sampledRow && (col - x) % stride == 0) {
+                    continue;
+                }
+                if (hit(table, pixels.applyAsInt(col, row)) && (mask == null || mask.contains(col, row))
+                        && ++count >= n) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static boolean hit(long[] table, int argb) {
+        int rgb = argb & 0xFFFFFF;
+        return (table[rgb >>> 6] & (1L << rgb)) != 0;
+    }
+}
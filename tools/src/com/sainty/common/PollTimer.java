@@ -0,0 +1,66 @@
+package com.sainty.common;
+
+import java.util.Locale;
+
+/**
+ * Per-task poll latency, keyed by the script's task enum.
+ * <pre>
+ * long t0 = pollTimer.start();
+ * Task task = decideTask(ctx);
+ * int delay = executeTask(task, ctx);
+ * pollTimer.record(task, t0);
+ * </pre>
+ * Register it with {@link Telemetry#register} and each flush sends count, p50, p99 and max (in microseconds)
+ * per task, then starts a fresh interval.
+ */
+public final class PollTimer<E extends Enum<E>> implements TelemetrySource {
+    private final LatencyHistogram[] histograms;
+    private final String[][] metricNames;
+
+    public PollTimer(Class<E> tasks) {
+        E[] values = tasks.getEnumConstants();
+        histograms = new LatencyHistogram[values.length];
+        metricNames = new String[values.length][];
+        for (E e : values) {
+            String key = "poll_" + e.name().toLowerCase(Locale.ROOT);
+            histograms[e.ordinal()] = new LatencyHistogram();
+            metricNames[e.ordinal()] = new String[]{
+                    key + "_count",
+                    key + "_p50_us",
+                    key + "_p99_us",
+                    key + "_max_us"
+            };
+        }
+    }
+
+    public long start() {
+        return System.nanoTime();
+    }
+
+    public void record(E task, long startNanos) {
+        if (task == null) {
+            return;
+        }
+        histograms[task.ordinal()].record((System.nanoTime() - startNanos) / 1000);
+    }
+
+    public LatencyHistogram get(E task) {
+        return histograms[task.ordinal()];
+    }
+
+    @Override
+    public void drainTo(Sink sink) {
+        for (int i = 0; i < histograms.length; i++) {
+            LatencyHistogram h = histograms[i];
+            if (h.getCount() == 0) {
+                continue;
+            }
+            String[] names = metricNames[i];
+            sink.count(names[0], h.getCount());
+            sink.gauge(names[1], h.getPercentile(50));
+            sink.gauge(names[2], h.getPercentile(99));
+            sink.gauge(names[3], h.getMax());
+            h.reset();
+        }
+    }
+}
@@ -1,13 +1,28 @@
 package com.sainty.common;
 
-import com.osmb.api.script.ScriptDefinition;
-
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 public class ProjectScriptVersionExtractor {
+    private static final String INDEX_FILE = "build/script-versions.index";
+    private static final String NONE = "-";
+
     public static void main(String[] args) throws Exception {
         if (args.length == 0) {
             throw new IllegalStateException("Root project directory not provided");
@@ -18,55 +33,134 @@ public class ProjectScriptVersionExtractor {
             throw new IllegalStateException("Invalid root directory: " + projectRoot);
         }
 
-        Map<String, Double> versions = new LinkedHashMap<>();
-
+        List<Path> roots = new ArrayList<>();
         String classPath = System.getProperty("java.class.path");
-        String[] entries = classPath.split(File.pathSeparator);
-
-        ClassLoader loader = ProjectScriptVersionExtractor.class.getClassLoader();
-
-        for (String entry : entries) {
+        for (String entry : classPath.split(File.pathSeparator)) {
             File f = new File(entry);
             if (f.isDirectory()) {
-                scan(f, f, loader, versions);
+                roots.add(f.toPath().toAbsolutePath());
             }
         }
 
-        writeJson(projectRoot, versions);
-        System.out.println("Generated versions.json (" + versions.size() + " scripts)");
-    }
+        // Modules compiled with ScriptVersionProcessor already list their scripts; only scan the rest
+        List<Path> unprocessed = new ArrayList<>();
+        for (Path root : roots) {
+            if (!Files.exists(root.resolve(ScriptVersionProcessor.FRAGMENT))) {
+                unprocessed.add(root);
+            }
+        }
+
+        Path indexFile = projectRoot.toPath().resolve(INDEX_FILE);
+        Map<String, IndexEntry> previous = readIndex(indexFile);
+        Map<String, IndexEntry> current = new ConcurrentHashMap<>();
+        AtomicInteger parsed = new AtomicInteger();
 
+        // Class files are read as bytes, never loaded, so output directories can be scanned in parallel
+        unprocessed.parallelStream().forEach(root -> {
+            try (Stream<Path> files = Files.walk(root)) {
+                files.parallel()
+                        .filter(p -> p.toString().endsWith(".class"))
+                        .forEach(p -> scan(p, previous, current, parsed));
+            } catch (IOException e) {
+                System.err.println("Failed to scan " + root + ": " + e.getMessage());
+            }
+        });
 
-    private static void scan(File file, File root, ClassLoader loader,
-                             Map<String, Double> out) {
-        if (file.isDirectory()) {
-            File[] files = file.listFiles();
-            if (files != null) {
-                for (File f : files) {
-                    scan(f, root, loader, out);
+        Map<String, Double> versions = new LinkedHashMap<>();
+        Map<String, String> declaredBy = new HashMap<>();
+        for (Path root : roots) {
+            Path fragment = root.resolve(ScriptVersionProcessor.FRAGMENT);
+            if (Files.exists(fragment)) {
+                for (String line : Files.readAllLines(fragment, StandardCharsets.UTF_8)) {
+                    String[] parts = line.split("\t");
+                    if (parts.length >= 2) {
+                        put(versions, declaredBy, parts[0], Double.parseDouble(parts[1]),
+                                parts.length > 2 ? parts[2] : fragment.toString());
+                    }
                 }
+                continue;
+            }
+            String prefix = root.toString() + File.separator;
+            List<IndexEntry> found = current.values().stream()
+                    .filter(e -> e.definition != null && e.path.startsWith(prefix))
+                    .sorted(Comparator.comparing(e -> e.path))
+                    .collect(Collectors.toList());
+            for (IndexEntry e : found) {
+                put(versions, declaredBy, e.definition.name, e.definition.version, e.path);
             }
-            return;
         }
-        if (!file.getName().endsWith(".class")) {
-            return;
+
+        writeIndex(indexFile, current);
+        writeJson(projectRoot, versions);
+        System.out.println("Generated versions.json (" + versions.size() + " scripts, "
+                + (roots.size() - unprocessed.size()) + " fragments, "
+                + parsed.get() + " of " + current.size() + " classes parsed)");
+    }
+
+    private static void put(Map<String, Double> versions, Map<String, String> declaredBy,
+                            String name, double version, String owner) {
+        String previous = declaredBy.putIfAbsent(name, owner);
+        if (previous != null && !previous.equals(owner)) {
+            throw new IllegalStateException("Duplicate script name \"" + name + "\" declared by "
+                    + previous + " and " + owner);
         }
+        versions.put(name, version);
+    }
+
+    private static void scan(Path file, Map<String, IndexEntry> previous,
+                             Map<String, IndexEntry> out, AtomicInteger parsed) {
+        String key = file.toString();
         try {
-            String abs = file.getAbsolutePath();
-            String rootPath = root.getAbsolutePath();
-            if (!abs.startsWith(rootPath)) {
+            long modified = Files.getLastModifiedTime(file).toMillis();
+            long size = Files.size(file);
+            IndexEntry cached = previous.get(key);
+            if (cached != null && cached.modified == modified && cached.size == size) {
+                out.put(key, cached);
                 return;
             }
-            String className = abs
-                    .substring(rootPath.length() + 1)
-                    .replace(File.separatorChar, '.')
-                    .replace(".class", "");
-            Class<?> cls = Class.forName(className, false, loader);
-            ScriptDefinition def = cls.getAnnotation(ScriptDefinition.class);
-            if (def != null) {
-                out.put(def.name(), def.version());
+            ScriptDefinitionReader.Definition def = ScriptDefinitionReader.read(Files.readAllBytes(file));
+            parsed.incrementAndGet();
+            out.put(key, new IndexEntry(key, modified, size, def));
+        } catch (IOException e) {
+            System.err.println("Skipping unreadable class " + file + ": " + e.getMessage());
+        }
+    }
+
+    private static Map<String, IndexEntry> readIndex(Path indexFile) {
+        Map<String, IndexEntry> index = new ConcurrentHashMap<>();
+        if (!Files.exists(indexFile)) {
+            return index;
+        }
+        try (BufferedReader r = Files.newBufferedReader(indexFile, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = r.readLine()) != null) {
+                String[] parts = line.split("\t");
+                if (parts.length != 5) {
+                    continue;
+                }
+                ScriptDefinitionReader.Definition def = NONE.equals(parts[3])
+                        ? null
+                        : new ScriptDefinitionReader.Definition(parts[3], Double.parseDouble(parts[4]));
+                index.put(parts[0], new IndexEntry(parts[0], Long.parseLong(parts[1]), Long.parseLong(parts[2]), def));
+            }
+        } catch (IOException | NumberFormatException e) {
+            // A broken index only costs a full rescan
+            index.clear();
+        }
+        return index;
+    }
+
+    private static void writeIndex(Path indexFile, Map<String, IndexEntry> index) throws IOException {
+        Files.createDirectories(indexFile.getParent());
+        List<IndexEntry> entries = index.values().stream()
+                .sorted(Comparator.comparing(e -> e.path))
+                .collect(Collectors.toList());
+        try (BufferedWriter w = Files.newBufferedWriter(indexFile, StandardCharsets.UTF_8)) {
+            for (IndexEntry e : entries) {
+                w.write(e.path + "\t" + e.modified + "\t" + e.size + "\t"
+                        + (e.definition == null ? NONE + "\t" + NONE : e.definition.name + "\t" + e.definition.version));
+                w.newLine();
             }
-        } catch (Throwable ignored) {
         }
     }
 
@@ -85,4 +179,18 @@ public class ProjectScriptVersionExtractor {
             w.write("}\n");
         }
     }
+
+    private static final class IndexEntry {
+        final String path;
+        final long modified;
+        final long size;
+        final ScriptDefinitionReader.Definition definition;
+
+        IndexEntry(String path, long modified, long size, ScriptDefinitionReader.Definition definition) {
+            this.path = path;
+            this.modified = modified;
+            this.size = size;
+            this.definition = definition;
+        }
+    }
 }
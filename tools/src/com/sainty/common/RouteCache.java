@@ -0,0 +1,390 @@
+package com.sainty.common;
+
+import com.osmb.api.ScriptCore;
+import com.osmb.api.location.position.types.WorldPosition;
+import com.osmb.api.utils.RandomUtils;
+import com.osmb.api.walker.WalkConfig;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Walks recorded the first time a leg is walked and replayed as short hops after that, for scripts that walk
+ * the same few legs all session.
+ * <p>
+ * A leg is keyed by the {@value #CELL_SIZE}x{@value #CELL_SIZE} tile cell it starts in and the cell of its
+ * destination, so random targets around the same spot share a route. Walks of a leg go through the walker as
+ * usual while the player's tile is sampled every frame; the path, up to wherever the walk ended or the caller's
+ * arrival check passed, is thinned to waypoints at most {@value #MAX_HOP} tiles apart and kept. Replays hop
+ * between the waypoints, each jittered by up to {@value #JITTER} tile, using the caller's config (walk methods,
+ * randomisation) and arrival check for every hop. A hop that doesn't get near its waypoint means something is
+ * in the way: the route is forgotten and the walker takes over from where the player stands. Paths that change
+ * plane or jump (teleports, stairs) are never recorded.
+ * <p>
+ * The API has no way to walk a known path, so every hop is a {@code walkTo} with its own path search and a
+ * replay is not cheaper by construction. Each leg is therefore timed end to end, from the call until the walk
+ * returns or the arrival check passes, for the walker and for replays alike. A leg is walked by the walker
+ * {@value #MIN_WALKER_WALKS} times before it is replayed, and is handed back to the walker once replays average
+ * slower. The saving is the walker's average for a leg minus the replay's time, totalled per loop as marked by
+ * {@link #endLoop()}.
+ * <p>
+ * Routes persist with their leg timings in a small binary file per script under the OSMB config directory, so a
+ * leg measured in an earlier session is replayed (or left to the walker) straight away. The file is only
+ * written when a route is recorded or forgotten, or a leg's walker/replay decision changes, not on every walk.
+ * Use from the script thread.
+ */
+public final class RouteCache implements TelemetrySource {
+    private static final Path DEFAULT_DIR = Paths.get(
+            System.getProperty("user.home"),
+            "OSMB",
+            "Config",
+            "Routes"
+    );
+    private static final int MAGIC = 0x52544532;
+    private static final int CELL_SIZE = 8;
+    private static final int MAX_HOP = 10;
+    private static final int MAX_STEP = 3;
+    private static final int JITTER = 1;
+    private static final int HOP_BREAK_DISTANCE = 2;
+    private static final int HOP_ARRIVE_DISTANCE = 3;
+    private static final int MIN_WAYPOINTS = 2;
+    private static final int MIN_WALKER_WALKS = 3;
+    private static final int MIN_REPLAY_WALKS = 3;
+    private static final double LEG_EWMA_ALPHA = 0.2;
+
+    private final ScriptCore script;
+    private final Path file;
+    private final Map<Long, int[]> routes = new HashMap<>();
+    private final Map<Long, Leg> legs = new HashMap<>();
+
+    private final List<WorldPosition> samples = new ArrayList<>();
+    private boolean hasArrived;
+
+    private double savedThisLoop;
+    private final LatencyHistogram walkerLeg = new LatencyHistogram();
+    private final LatencyHistogram replayLeg = new LatencyHistogram();
+    private final LatencyHistogram savedPerLoop = new LatencyHistogram();
+    private long replays;
+    private long hops;
+    private long recorded;
+    private long fallbacks;
+    private long retired;
+
+    // Timings of one leg, averaged as EWMAs and saved with its route
+    private static final class Leg {
+        double walkerMs;
+        int walkerWalks;
+        double replayMs;
+        int replayWalks;
+        boolean walkerOnly;
+    }
+
+    public RouteCache(ScriptCore script, String name) {
+        this(script, DEFAULT_DIR.resolve(name + ".routes"));
+    }
+
+    public RouteCache(ScriptCore script, Path file) {
+        this.script = script;
+        this.file = file;
+        load();
+    }
+
+    /**
+     * Walks to the target, replaying a recorded route for this leg if replays have been the cheaper way there.
+     * {@code config} is used for every hop and the final walk onto the target and must not have its own break
+     * condition; pass the check for having arrived as {@code arrived} (may be null). It ends the walk from any
+     * hop, and a walk ended by it counts as a complete leg.
+     *
+     * @return whether the last walk was issued or the player arrived
+     */
+    public boolean walkTo(WorldPosition target, WalkConfig.Builder config, BooleanSupplier arrived) {
+        WorldPosition start = script.getWorldPosition();
+        if (start == null || target == null) {
+            return false;
+        }
+        long key = key(start, target);
+        Leg leg = legs.computeIfAbsent(key, k -> new Leg());
+        int[] route = routes.get(key);
+        if (route == null || leg.walkerOnly || leg.walkerWalks < MIN_WALKER_WALKS) {
+            return walkAndRecord(key, leg, start, target, config, arrived);
+        }
+
+        long startNanos = System.nanoTime();
+        beginWalk(start);
+        int waypoints = route.length / 2;
+        // The last waypoint is where the recorded walk stopped; the final walk below goes there itself
+        for (int i = 0; i < waypoints - 1; i++) {
+            WorldPosition hop = new WorldPosition(
+                    route[2 * i] + RandomUtils.uniformRandom(-JITTER, JITTER),
+                    route[2 * i + 1] + RandomUtils.uniformRandom(-JITTER, JITTER),
+                    start.getPlane());
+            script.getWalker().walkTo(hop, config.breakCondition(() -> {
+                if (sampleAndCheck(arrived)) {
+                    return true;
+                }
+                WorldPosition position = script.getWorldPosition();
+                return position != null && steps(position, hop) <= HOP_BREAK_DISTANCE;
+            }).build());
+            hops++;
+            if (hasArrived) {
+                replays++;
+                recordReplay(key, leg, startNanos);
+                return true;
+            }
+            WorldPosition now = script.getWorldPosition();
+            // Judged by where the player ended up, since a hop cut short near its waypoint may not count as issued
+            if (now == null || steps(now, hop) > HOP_ARRIVE_DISTANCE) {
+                // Blocked: forget the route and let the walker find a way from here
+                routes.remove(key);
+                legs.remove(key);
+                save();
+                fallbacks++;
+                return now != null && walkAndRecord(key(now, target), null, now, target, config, arrived);
+            }
+        }
+        replays++;
+        boolean issued = script.getWalker().walkTo(target, config.breakCondition(() -> sampleAndCheck(arrived)).build());
+        if (issued || hasArrived) {
+            recordReplay(key, leg, startNanos);
+        }
+        return issued || hasArrived;
+    }
+
+    /**
+     * Marks the end of one loop of the script, for the walking time saved per loop.
+     */
+    public void endLoop() {
+        savedPerLoop.record(Math.round(savedThisLoop));
+        savedThisLoop = 0;
+    }
+
+    public int size() {
+        return routes.size();
+    }
+
+    @Override
+    public void drainTo(Sink sink) {
+        sink.gauge("route_cache_routes", routes.size());
+        if (recorded + replays + fallbacks + retired > 0) {
+            sink.count("route_cache_recorded", recorded);
+            sink.count("route_cache_replays", replays);
+            sink.count("route_cache_hops", hops);
+            sink.count("route_cache_fallbacks", fallbacks);
+            sink.count("route_cache_retired", retired);
+            recorded = 0;
+            replays = 0;
+            hops = 0;
+            fallbacks = 0;
+            retired = 0;
+        }
+        if (walkerLeg.getCount() > 0) {
+            sink.gauge("route_leg_walker_p50_ms", walkerLeg.getPercentile(50));
+            walkerLeg.reset();
+        }
+        if (replayLeg.getCount() > 0) {
+            sink.gauge("route_leg_replay_p50_ms", replayLeg.getPercentile(50));
+            replayLeg.reset();
+        }
+        if (savedPerLoop.getCount() > 0) {
+            sink.gauge("route_leg_saved_per_loop_p50_ms", savedPerLoop.getPercentile(50));
+            savedPerLoop.reset();
+        }
+    }
+
+    // Walks with the walker, timing the leg if it is known and recording its path if it has none yet
+    private boolean walkAndRecord(long key, Leg leg, WorldPosition start, WorldPosition target,
+                                  WalkConfig.Builder config, BooleanSupplier arrived) {
+        long startNanos = System.nanoTime();
+        beginWalk(start);
+        boolean issued = script.getWalker().walkTo(target, config.breakCondition(() -> sampleAndCheck(arrived)).build());
+        sample();
+        if (!issued && !hasArrived) {
+            return false;
+        }
+        boolean changed = false;
+        if (leg != null) {
+            long ms = (System.nanoTime() - startNanos) / 1_000_000;
+            walkerLeg.record(ms);
+            leg.walkerMs = leg.walkerWalks == 0 ? ms : leg.walkerMs + LEG_EWMA_ALPHA * (ms - leg.walkerMs);
+            leg.walkerWalks++;
+            // The leg becomes replayable on this walk
+            changed = leg.walkerWalks == MIN_WALKER_WALKS;
+        }
+        if (!routes.containsKey(key)) {
+            int[] route = thin(samples);
+            if (route != null) {
+                routes.put(key, route);
+                recorded++;
+                changed = true;
+            }
+        }
+        if (changed) {
+            save();
+        }
+        return true;
+    }
+
+    private void recordReplay(long key, Leg leg, long startNanos) {
+        long ms = (System.nanoTime() - startNanos) / 1_000_000;
+        replayLeg.record(ms);
+        leg.replayMs = leg.replayWalks == 0 ? ms : leg.replayMs + LEG_EWMA_ALPHA * (ms - leg.replayMs);
+        leg.replayWalks++;
+        savedThisLoop += leg.walkerMs - ms;
+        if (leg.replayWalks >= MIN_REPLAY_WALKS && leg.replayMs >= leg.walkerMs) {
+            leg.walkerOnly = true;
+            retired++;
+            save();
+        } else if (leg.replayWalks == MIN_REPLAY_WALKS) {
+            save();
+        }
+    }
+
+    private void beginWalk(WorldPosition start) {
+        samples.clear();
+        samples.add(start);
+        hasArrived = false;
+    }
+
+    // Records the tile and whether the caller's arrival check passed; the path kept ends on the tile it passed on
+    private boolean sampleAndCheck(BooleanSupplier arrivedCheck) {
+        sample();
+        if (arrivedCheck != null && arrivedCheck.getAsBoolean()) {
+            hasArrived = true;
+        }
+        return hasArrived;
+    }
+
+    private void sample() {
+        WorldPosition position = script.getWorldPosition();
+        if (position != null && !position.equals(samples.get(samples.size() - 1))) {
+            samples.add(position);
+        }
+    }
+
+    // Waypoints at most MAX_HOP apart along the walked tiles, or null if the walk can't be replayed by hopping
+    private static int[] thin(List<WorldPosition> path) {
+        if (path.size() < 2) {
+            return null;
+        }
+        int plane = path.get(0).getPlane();
+        List<WorldPosition> kept = new ArrayList<>();
+        WorldPosition anchor = path.get(0);
+        for (int i = 1; i < path.size(); i++) {
+            WorldPosition p = path.get(i);
+            if (p.getPlane() != plane || steps(p, path.get(i - 1)) > MAX_STEP) {
+                return null;
+            }
+            if (steps(p, anchor) > MAX_HOP) {
+                anchor = path.get(i - 1);
+                kept.add(anchor);
+            }
+        }
+        kept.add(path.get(path.size() - 1));
+        if (kept.size() < MIN_WAYPOINTS) {
+            return null;
+        }
+        int[] route = new int[kept.size() * 2];
+        for (int i = 0; i < kept.size(); i++) {
+            route[2 * i] = kept.get(i).getX();
+            route[2 * i + 1] = kept.get(i).getY();
+        }
+        return route;
+    }
+
+    private static int steps(WorldPosition a, WorldPosition b) {
+        return Math.max(Math.abs(a.getX() - b.getX()), Math.abs(a.getY() - b.getY()));
+    }
+
+    private static long key(WorldPosition from, WorldPosition to) {
+        return ((long) from.getPlane() << 56)
+                | ((long) (Math.floorDiv(from.getX(), CELL_SIZE) & 0x3FFF) << 42)
+                | ((long) (Math.floorDiv(from.getY(), CELL_SIZE) & 0x3FFF) << 28)
+                | ((long) (Math.floorDiv(to.getX(), CELL_SIZE) & 0x3FFF) << 14)
+                | (Math.floorDiv(to.getY(), CELL_SIZE) & 0x3FFF);
+    }
+
+    // [magic][count] then per route [key][waypoints][x0][y0], a signed byte dx, dy per later waypoint, and the
+    // leg's [walker ms][walker walks][replay ms][replay walks][walker only]
+    private void save() {
+        try {
+            Files.createDirectories(file.getParent());
+            Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(routes.size());
+                for (Map.Entry<Long, int[]> entry : routes.entrySet()) {
+                    int[] route = entry.getValue();
+                    out.writeLong(entry.getKey());
+                    out.writeShort(route.length / 2);
+                    out.writeInt(route[0]);
+                    out.writeInt(route[1]);
+                    for (int i = 2; i < route.length; i += 2) {
+                        out.writeByte(route[i] - route[i - 2]);
+                        out.writeByte(route[i + 1] - route[i - 1]);
+                    }
+                    Leg leg = legs.getOrDefault(entry.getKey(), new Leg());
+                    out.writeFloat((float) leg.walkerMs);
+                    out.writeShort(Math.min(leg.walkerWalks, Short.MAX_VALUE));
+                    out.writeFloat((float) leg.replayMs);
+                    out.writeShort(Math.min(leg.replayWalks, Short.MAX_VALUE));
+                    out.writeBoolean(leg.walkerOnly);
+                }
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException ignored) {
+        }
+    }
+
+    private void load() {
+        if (!Files.exists(file)) {
+            return;
+        }
+        Map<Long, int[]> loadedRoutes = new HashMap<>();
+        Map<Long, Leg> loadedLegs = new HashMap<>();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            // Files from before leg timings were saved start over
+            if (in.readInt() != MAGIC) {
+                return;
+            }
+            int count = in.readInt();
+            for (int r = 0; r < count; r++) {
+                long key = in.readLong();
+                int waypoints = in.readShort();
+                if (waypoints < MIN_WAYPOINTS) {
+                    return;
+                }
+                int[] route = new int[waypoints * 2];
+                route[0] = in.readInt();
+                route[1] = in.readInt();
+                for (int i = 2; i < route.length; i += 2) {
+                    route[i] = route[i - 2] + in.readByte();
+                    route[i + 1] = route[i - 1] + in.readByte();
+                }
+                Leg leg = new Leg();
+                leg.walkerMs = in.readFloat();
+                leg.walkerWalks = in.readShort();
+                leg.replayMs = in.readFloat();
+                leg.replayWalks = in.readShort();
+                leg.walkerOnly = in.readBoolean();
+                loadedRoutes.put(key, route);
+                loadedLegs.put(key, leg);
+            }
+        } catch (IOException e) {
+            return;
+        }
+        routes.putAll(loadedRoutes);
+        legs.putAll(loadedLegs);
+    }
+}
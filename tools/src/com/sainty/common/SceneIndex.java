@@ -0,0 +1,205 @@
+package com.sainty.common;
+
+import com.osmb.api.ScriptCore;
+import com.osmb.api.location.position.types.WorldPosition;
+import com.osmb.api.scene.RSObject;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * The scene's objects indexed by lower-case name, object id and tile, rebuilt at most once per game frame.
+ * <p>
+ * Call {@link #onNewFrame()} from the script's {@code onNewFrame}; the first lookup in a new frame pulls
+ * every object once and indexes it, and every lookup after that is a hash probe. Lower-cased names are
+ * interned across rebuilds, so the same name is only lower-cased once per run. Call {@link #invalidate()}
+ * after an action that changes the scene within the same frame. Returned lists belong to the index and must
+ * not be modified. Use from the script thread.
+ */
+public final class SceneIndex {
+    private final ScriptCore script;
+    private final Map<String, String> lowerNames = new HashMap<>();
+    private volatile long frame;
+    private long builtFrame = -1;
+
+    private List<RSObject> all = Collections.emptyList();
+    private final Map<String, List<RSObject>> byName = new HashMap<>();
+    private final LongTable byId = new LongTable();
+    private final LongTable byTile = new LongTable();
+
+    public SceneIndex(ScriptCore script) {
+        this.script = script;
+    }
+
+    public void onNewFrame() {
+        frame++;
+    }
+
+    public void invalidate() {
+        builtFrame = -1;
+    }
+
+    public List<RSObject> getAll() {
+        sync();
+        return all;
+    }
+
+    /**
+     * Objects with exactly this name, ignoring case.
+     */
+    public List<RSObject> getByName(String name) {
+        sync();
+        List<RSObject> objects = name != null ? byName.get(lower(name)) : null;
+        return objects != null ? objects : Collections.emptyList();
+    }
+
+    /**
+     * Objects whose name contains the fragment, ignoring case. Checks each distinct name once, not each object.
+     */
+    public List<RSObject> getByNameContaining(String fragment) {
+        sync();
+        String lowerFragment = lower(fragment);
+        List<RSObject> result = new ArrayList<>();
+        for (Map.Entry<String, List<RSObject>> entry : byName.entrySet()) {
+            if (entry.getKey().contains(lowerFragment)) {
+                result.addAll(entry.getValue());
+            }
+        }
+        return result;
+    }
+
+    public List<RSObject> getById(int id) {
+        sync();
+        return byId.get(id);
+    }
+
+    public List<RSObject> getAt(WorldPosition position) {
+        sync();
+        return position != null ? byTile.get(tileKey(position)) : Collections.emptyList();
+    }
+
+    /**
+     * The first object on the tile with one of the names, ignoring case, or null.
+     */
+    public RSObject getAt(WorldPosition position, String... names) {
+        for (RSObject object : getAt(position)) {
+            String name = object.getName();
+            if (name == null) {
+                continue;
+            }
+            String lowerName = lower(name);
+            for (String wanted : names) {
+                if (lowerName.equals(lower(wanted))) {
+                    return object;
+                }
+            }
+        }
+        return null;
+    }
+
+    private void sync() {
+        long current = frame;
+        if (current == builtFrame) {
+            return;
+        }
+        builtFrame = current;
+
+        byName.clear();
+        byId.clear();
+        byTile.clear();
+        List<RSObject> objects = script.getObjectManager().getObjects(object -> object != null);
+        all = objects != null ? Collections.unmodifiableList(objects) : Collections.emptyList();
+        for (RSObject object : all) {
+            String name = object.getName();
+            if (name != null) {
+                byName.computeIfAbsent(lower(name), k -> new ArrayList<>()).add(object);
+            }
+            byId.add(object.getId(), object);
+            WorldPosition position = object.getWorldPosition();
+            if (position != null) {
+                byTile.add(tileKey(position), object);
+            }
+        }
+    }
+
+    private String lower(String name) {
+        return lowerNames.computeIfAbsent(name, n -> n.toLowerCase(Locale.ROOT).intern());
+    }
+
+    private static long tileKey(WorldPosition position) {
+        return ((long) position.getPlane() << 40) | ((long) (position.getX() & 0xFFFFF) << 20) | (position.getY() & 0xFFFFF);
+    }
+
+    // Open-addressed long -> list of objects, cleared between frames without reallocating
+    private static final class LongTable {
+        private long[] keys = new long[256];
+        private Object[] values = new Object[256];
+        private int size;
+
+        void clear() {
+            if (size > 0) {
+                Arrays.fill(values, null);
+                size = 0;
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        List<RSObject> get(long key) {
+            int mask = keys.length - 1;
+            for (int i = slot(key, mask); values[i] != null; i = (i + 1) & mask) {
+                if (keys[i] == key) {
+                    return (List<RSObject>) values[i];
+                }
+            }
+            return Collections.emptyList();
+        }
+
+        @SuppressWarnings("unchecked")
+        void add(long key, RSObject object) {
+            int mask = keys.length - 1;
+            int i = slot(key, mask);
+            for (; values[i] != null; i = (i + 1) & mask) {
+                if (keys[i] == key) {
+                    ((List<RSObject>) values[i]).add(object);
+                    return;
+                }
+            }
+            List<RSObject> list = new ArrayList<>(2);
+            list.add(object);
+            keys[i] = key;
+            values[i] = list;
+            if (++size * 2 > keys.length) {
+                grow();
+            }
+        }
+
+        private void grow() {
+            long[] oldKeys = keys;
+            Object[] oldValues = values;
+            keys = new long[oldKeys.length * 2];
+            values = new Object[oldValues.length * 2];
+            int mask = keys.length - 1;
+            for (int j = 0; j < oldKeys.length; j++) {
+                if (oldValues[j] == null) {
+                    continue;
+                }
+                int i = slot(oldKeys[j], mask);
+                while (values[i] != null) {
+                    i = (i + 1) & mask;
+                }
+                keys[i] = oldKeys[j];
+                values[i] = oldValues[j];
+            }
+        }
+
+        private static int slot(long key, int mask) {
+            long h = key * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32)) & mask;
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package com.sainty.common;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+
+/**
+ * Reads {@code @ScriptDefinition(name, version)} straight out of class file bytes, without loading the class.
+ * Classes whose constant pool doesn't mention the annotation are rejected as soon as the pool has been read.
+ */
+final class ScriptDefinitionReader {
+    static final String ANNOTATION_DESCRIPTOR = "Lcom/osmb/api/script/ScriptDefinition;";
+
+    private static final int CONSTANT_UTF8 = 1;
+    private static final int CONSTANT_INTEGER = 3;
+    private static final int CONSTANT_FLOAT = 4;
+    private static final int CONSTANT_LONG = 5;
+    private static final int CONSTANT_DOUBLE = 6;
+    private static final int CONSTANT_CLASS = 7;
+    private static final int CONSTANT_STRING = 8;
+    private static final int CONSTANT_FIELDREF = 9;
+    private static final int CONSTANT_METHODREF = 10;
+    private static final int CONSTANT_INTERFACE_METHODREF = 11;
+    private static final int CONSTANT_NAME_AND_TYPE = 12;
+    private static final int CONSTANT_METHOD_HANDLE = 15;
+    private static final int CONSTANT_METHOD_TYPE = 16;
+    private static final int CONSTANT_DYNAMIC = 17;
+    private static final int CONSTANT_INVOKE_DYNAMIC = 18;
+    private static final int CONSTANT_MODULE = 19;
+    private static final int CONSTANT_PACKAGE = 20;
+
+    private ScriptDefinitionReader() {
+    }
+
+    static final class Definition {
+        final String name;
+        final double version;
+
+        Definition(String name, double version) {
+            this.name = name;
+            this.version = version;
+        }
+    }
+
+    /**
+     * Returns the script definition declared on the class, or null if it has none.
+     */
+    static Definition read(byte[] classFile) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(classFile));
+        if (in.readInt() != 0xCAFEBABE) {
+            return null;
+        }
+        in.readUnsignedShort();
+        in.readUnsignedShort();
+
+        int count = in.readUnsignedShort();
+        String[] utf8 = new String[count];
+        long[] wide = new long[count];
+        boolean annotated = false;
+        for (int i = 1; i < count; i++) {
+            int tag = in.readUnsignedByte();
+            switch (tag) {
+                case CONSTANT_UTF8:
+                    utf8[i] = in.readUTF();
+                    if (ANNOTATION_DESCRIPTOR.equals(utf8[i])) {
+                        annotated = true;
+                    }
+                    break;
+                case CONSTANT_LONG:
+                case CONSTANT_DOUBLE:
+                    wide[i] = in.readLong();
+                    i++;
+                    break;
+                case CONSTANT_CLASS:
+                case CONSTANT_STRING:
+                case CONSTANT_METHOD_TYPE:
+                case CONSTANT_MODULE:
+                case CONSTANT_PACKAGE:
+                    in.skipBytes(2);
+                    break;
+                case CONSTANT_METHOD_HANDLE:
+                    in.skipBytes(3);
+                    break;
+                case CONSTANT_INTEGER:
+                case CONSTANT_FLOAT:
+                case CONSTANT_FIELDREF:
+                case CONSTANT_METHODREF:
+                case CONSTANT_INTERFACE_METHODREF:
+                case CONSTANT_NAME_AND_TYPE:
+                case CONSTANT_DYNAMIC:
+                case CONSTANT_INVOKE_DYNAMIC:
+                    in.skipBytes(4);
+                    break;
+                default:
+                    throw new IOException("Unknown constant pool tag " + tag);
+            }
+        }
+        if (!annotated) {
+            return null;
+        }
+
+        in.skipBytes(6);
+        in.skipBytes(2 * in.readUnsignedShort());
+        skipMembers(in);
+        skipMembers(in);
+
+        int attributes = in.readUnsignedShort();
+        for (int a = 0; a < attributes; a++) {
+            String attrName = utf8[in.readUnsignedShort()];
+            int length = in.readInt();
+            if (!"RuntimeVisibleAnnotations".equals(attrName)
+                    && !"RuntimeInvisibleAnnotations".equals(attrName)) {
+                in.skipBytes(length);
+                continue;
+            }
+            int annotations = in.readUnsignedShort();
+            for (int n = 0; n < annotations; n++) {
+                String type = utf8[in.readUnsignedShort()];
+                if (!ANNOTATION_DESCRIPTOR.equals(type)) {
+                    skipPairs(in);
+                    continue;
+                }
+                String name = null;
+                double version = Double.NaN;
+                int pairs = in.readUnsignedShort();
+                for (int p = 0; p < pairs; p++) {
+                    String element = utf8[in.readUnsignedShort()];
+                    int tag = in.readUnsignedByte();
+                    if (tag == 's' && "name".equals(element)) {
+                        name = utf8[in.readUnsignedShort()];
+                    } else if (tag == 'D' && "version".equals(element)) {
+                        version = Double.longBitsToDouble(wide[in.readUnsignedShort()]);
+                    } else {
+                        skipElementValue(in, tag);
+                    }
+                }
+                return name != null && !Double.isNaN(version) ? new Definition(name, version) : null;
+            }
+        }
+        return null;
+    }
+
+    private static void skipMembers(DataInputStream in) throws IOException {
+        int members = in.readUnsignedShort();
+        for (int m = 0; m < members; m++) {
+            in.skipBytes(6);
+            int attributes = in.readUnsignedShort();
+            for (int a = 0; a < attributes; a++) {
+                in.skipBytes(2);
+                in.skipBytes(in.readInt());
+            }
+        }
+    }
+
+    private static void skipPairs(DataInputStream in) throws IOException {
+        int pairs = in.readUnsignedShort();
+        for (int p = 0; p < pairs; p++) {
+            in.skipBytes(2);
+            skipElementValue(in, in.readUnsignedByte());
+        }
+    }
+
+    private static void skipElementValue(DataInputStream in, int tag) throws IOException {
+        switch (tag) {
+            case 'e':
+                in.skipBytes(4);
+                break;
+            case '@':
+                in.skipBytes(2);
+                skipPairs(in);
+                break;
+            case '[':
+                int values = in.readUnsignedShort();
+                for (int v = 0; v < values; v++) {
+                    skipElementValue(in, in.readUnsignedByte());
+                }
+                break;
+            default:
+                // B C D F I J S Z s c: a single constant pool index
+                in.skipBytes(2);
+                break;
+        }
+    }
+}
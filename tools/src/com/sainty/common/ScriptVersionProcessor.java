@@ -0,0 +1,107 @@
+package com.sainty.common;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.annotation.processing.SupportedOptions;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.TypeElement;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Collects every {@code @ScriptDefinition(name, version)} while a module compiles and writes them to
+ * {@value #FRAGMENT} in the module's class output. {@link ProjectScriptVersionExtractor} merges the fragments
+ * into versions.json. Two scripts declaring the same name fail the compile.
+ * <p>
+ * Annotation values are read through mirrors, so the processor doesn't need the API classes itself.
+ */
+@SupportedAnnotationTypes(ScriptVersionProcessor.ANNOTATION)
+@SupportedOptions(ScriptVersionProcessor.MODULE_OPTION)
+public final class ScriptVersionProcessor extends AbstractProcessor {
+    static final String ANNOTATION = "com.osmb.api.script.ScriptDefinition";
+    static final String MODULE_OPTION = "sainty.module";
+    static final String FRAGMENT = "META-INF/script-versions.tsv";
+
+    private final Map<String, Double> versions = new LinkedHashMap<>();
+    private final Map<String, String> declaredBy = new LinkedHashMap<>();
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        for (TypeElement annotation : annotations) {
+            for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+                collect(element);
+            }
+        }
+        if (roundEnv.processingOver()) {
+            writeFragment();
+        }
+        return false;
+    }
+
+    private void collect(Element element) {
+        for (AnnotationMirror mirror : element.getAnnotationMirrors()) {
+            if (!ANNOTATION.equals(mirror.getAnnotationType().toString())) {
+                continue;
+            }
+            String name = null;
+            Double version = null;
+            for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> e
+                    : mirror.getElementValues().entrySet()) {
+                String key = e.getKey().getSimpleName().toString();
+                Object value = e.getValue().getValue();
+                if (key.equals("name") && value instanceof String) {
+                    name = (String) value;
+                } else if (key.equals("version") && value instanceof Number) {
+                    version = ((Number) value).doubleValue();
+                }
+            }
+            if (name == null || version == null) {
+                return;
+            }
+            String owner = element.toString();
+            String previous = declaredBy.putIfAbsent(name, owner);
+            if (previous != null && !previous.equals(owner)) {
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                        "Duplicate script name \"" + name + "\" (already declared by " + previous + ")",
+                        element, mirror);
+                return;
+            }
+            versions.put(name, version);
+        }
+    }
+
+    private void writeFragment() {
+        if (versions.isEmpty()) {
+            return;
+        }
+        try {
+            FileObject file = processingEnv.getFiler()
+                    .createResource(StandardLocation.CLASS_OUTPUT, "", FRAGMENT);
+            try (Writer w = file.openWriter()) {
+                for (Map.Entry<String, Double> e : versions.entrySet()) {
+                    w.write(e.getKey() + "\t" + e.getValue() + "\t" + declaredBy.get(e.getKey()) + "\n");
+                }
+            }
+        } catch (IOException e) {
+            String module = processingEnv.getOptions().getOrDefault(MODULE_OPTION, "?");
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                    "Failed to write " + FRAGMENT + " for " + module + ": " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,260 @@
+package com.sainty.common;
+
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded metric queue drained by a single daemon thread.
+ * Callers only ever offer to the queue, so a slow or dead endpoint can never stall a script's poll loop.
+ * Everything queued within one linger window is posted as a single JSON array.
+ * Counters are posted as deltas; gauges carry {@code "type":"gauge"} and are posted whatever their value.
+ * Batches that fail to send (no answer, 5xx, 408 or 429) are spooled to disk and replayed oldest-first once the
+ * endpoint answers again. Any other 4xx means the batch itself is bad, so it is dropped rather than retried.
+ */
+public final class TelemetrySender {
+    private static final int DEFAULT_CAPACITY = 1024;
+    private static final long DEFAULT_LINGER_MS = 250L;
+    private static final int TIMEOUT_MS = 3000;
+    private static final long REPLAY_INTERVAL_MS = 60_000L;
+
+    private final String url;
+    private final String apiKey;
+    private final long lingerMs;
+    private final BlockingQueue<Metric> queue;
+    private final TelemetrySpool spool;
+    private final AtomicLong enqueued = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong sent = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong spooled = new AtomicLong();
+    private final AtomicLong refused = new AtomicLong();
+    private volatile Thread worker;
+
+    public TelemetrySender(String url, String apiKey, TelemetrySpool spool) {
+        this(url, apiKey, DEFAULT_CAPACITY, DEFAULT_LINGER_MS, spool);
+    }
+
+    /**
+     * @param spool where batches go when the endpoint rejects them, or null to drop them
+     */
+    public TelemetrySender(String url, String apiKey, int capacity, long lingerMs, TelemetrySpool spool) {
+        this.url = url;
+        this.apiKey = apiKey;
+        this.lingerMs = lingerMs;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.spool = spool;
+    }
+
+    /**
+     * Queues a counter delta without blocking. Returns false if the queue is full and the metric was dropped.
+     */
+    public boolean offer(String script, String metric, long value) {
+        return value > 0 && enqueue(new Metric(script, metric, value, false));
+    }
+
+    /**
+     * Queues a gauge without blocking. Unlike counters, zero and negative values are sent.
+     */
+    public boolean offerGauge(String script, String metric, long value) {
+        return enqueue(new Metric(script, metric, value, true));
+    }
+
+    private boolean enqueue(Metric m) {
+        if (url == null || url.isEmpty()) {
+            return false;
+        }
+        ensureWorker();
+        if (!queue.offer(m)) {
+            dropped.incrementAndGet();
+            return false;
+        }
+        enqueued.incrementAndGet();
+        return true;
+    }
+
+    public long getEnqueued() {
+        return enqueued.get();
+    }
+
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    public long getSent() {
+        return sent.get();
+    }
+
+    public long getFailed() {
+        return failed.get();
+    }
+
+    public long getBatches() {
+        return batches.get();
+    }
+
+    public long getSpooled() {
+        return spooled.get();
+    }
+
+    /**
+     * Batches, sent or replayed, that the endpoint refused with a 4xx and were dropped.
+     */
+    public long getRefusedBatches() {
+        return refused.get();
+    }
+
+    public TelemetrySpool getSpool() {
+        return spool;
+    }
+
+    public int getQueued() {
+        return queue.size();
+    }
+
+    private void ensureWorker() {
+        if (worker != null) {
+            return;
+        }
+        synchronized (this) {
+            if (worker != null) {
+                return;
+            }
+            Thread t = new Thread(this::run, "sainty-telemetry");
+            t.setDaemon(true);
+            t.start();
+            worker = t;
+        }
+    }
+
+    private void run() {
+        List<Metric> batch = new ArrayList<>();
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                Metric first = queue.poll(REPLAY_INTERVAL_MS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    // Idle for a whole interval, see whether the endpoint is back
+                    replaySpool();
+                    continue;
+                }
+                batch.add(first);
+                // Let the rest of a flush window arrive so it leaves as one request
+                if (lingerMs > 0) {
+                    Thread.sleep(lingerMs);
+                }
+                queue.drainTo(batch);
+                String json = toJson(batch);
+                batches.incrementAndGet();
+                int code = post(json);
+                if (isSuccess(code)) {
+                    sent.addAndGet(batch.size());
+                    replaySpool();
+                } else {
+                    failed.addAndGet(batch.size());
+                    if (!isRetryable(code)) {
+                        refused.incrementAndGet();
+                    } else if (spool != null && spool.append(json)) {
+                        spooled.addAndGet(batch.size());
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void replaySpool() {
+        if (spool != null && spool.hasPending()) {
+            spool.replay(json -> {
+                int code = post(json);
+                if (isSuccess(code)) {
+                    return true;
+                }
+                if (isRetryable(code)) {
+                    return false;
+                }
+                // Refused for good; dropping it lets the records behind it through
+                refused.incrementAndGet();
+                return true;
+            });
+        }
+    }
+
+    private static boolean isSuccess(int code) {
+        return code >= 200 && code < 300;
+    }
+
+    private static boolean isRetryable(int code) {
+        return code < 0 || code >= 500 || code == 408 || code == 429;
+    }
+
+    /**
+     * Returns the HTTP status, or -1 if there was no answer.
+     */
+    private int post(String json) {
+        try {
+            HttpURLConnection conn = (HttpURLConnection) new URL(url).openConnection();
+            conn.setRequestMethod("POST");
+            conn.setDoOutput(true);
+            conn.setConnectTimeout(TIMEOUT_MS);
+            conn.setReadTimeout(TIMEOUT_MS);
+            conn.setRequestProperty("Content-Type", "application/json");
+            if (apiKey != null) {
+                conn.setRequestProperty("x-api-key", apiKey);
+            }
+            try (OutputStream os = conn.getOutputStream()) {
+                os.write(json.getBytes(StandardCharsets.UTF_8));
+            }
+            return conn.getResponseCode();
+        } catch (Exception e) {
+            return -1;
+        }
+    }
+
+    static String toJson(List<Metric> batch) {
+        StringBuilder sb = new StringBuilder(batch.size() * 64);
+        sb.append('[');
+        for (int i = 0; i < batch.size(); i++) {
+            Metric m = batch.get(i);
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append("{\"script\":\"").append(m.script)
+                    .append("\",\"metric\":\"").append(m.metric)
+                    .append("\",\"value\":").append(m.value);
+            if (m.gauge) {
+                sb.append(",\"type\":\"gauge\"");
+            }
+            sb.append('}');
+        }
+        return sb.append(']').toString();
+    }
+
+    static final class Metric {
+        final String script;
+        final String metric;
+        final long value;
+        final boolean gauge;
+
+        Metric(String script, String metric, long value) {
+            this(script, metric, value, false);
+        }
+
+        Metric(String script, String metric, long value, boolean gauge) {
+            this.script = script;
+            this.metric = metric;
+            this.value = value;
+            this.gauge = gauge;
+        }
+    }
+}
@@ -0,0 +1,204 @@
+package com.sainty.common;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Telemetry state for one script. Sessions are keyed by script name so two scripts in the same client
+ * no longer share a flush window or counter baselines.
+ * <p>
+ * Counters are lock-free. Each flush claims the range between the last reported value and the current
+ * value with a CAS, so concurrent flushes can never report the same delta twice or lose one.
+ * <p>
+ * Registered sources belong to one run of the script: they are dropped when the session ends, and a session
+ * start drops any left by a run that never ended cleanly, so a restarted script doesn't report twice. A session
+ * start also drops the counter baselines, since a restarted script counts its totals from zero again.
+ */
+public final class TelemetrySession implements TelemetrySource.Sink {
+    private static final long DEFAULT_INTERVAL_MS = 60_000L;
+    private static final String RUNTIME_METRIC = "runtime_seconds";
+    private static final Map<String, TelemetrySession> SESSIONS = new ConcurrentHashMap<>();
+
+    private final String scriptName;
+    private final long intervalMs;
+    private final AtomicLong lastFlushMs = new AtomicLong();
+    private final Map<String, Counter> counters = new ConcurrentHashMap<>();
+    private final List<TelemetrySource> sources = new CopyOnWriteArrayList<>();
+
+    private TelemetrySession(String scriptName, long intervalMs) {
+        this.scriptName = scriptName;
+        this.intervalMs = intervalMs;
+    }
+
+    public static TelemetrySession get(String scriptName) {
+        return SESSIONS.computeIfAbsent(scriptName, n -> new TelemetrySession(n, DEFAULT_INTERVAL_MS));
+    }
+
+    public String getScriptName() {
+        return scriptName;
+    }
+
+    public Counter counter(String metric) {
+        Counter c = counters.get(metric);
+        return c != null ? c : counters.computeIfAbsent(metric, m -> new Counter());
+    }
+
+    /**
+     * Adds a source whose metrics go out with every flush of this session.
+     */
+    public void register(TelemetrySource source) {
+        if (!sources.contains(source)) {
+            sources.add(source);
+        }
+    }
+
+    public void unregister(TelemetrySource source) {
+        sources.remove(source);
+    }
+
+    public void sessionStart() {
+        sources.clear();
+        counters.clear();
+        lastFlushMs.set(0L);
+        Telemetry.send(scriptName, "session_start", 1);
+    }
+
+    public void sessionEnd() {
+        sources.clear();
+        Telemetry.send(scriptName, "session_end", 1);
+    }
+
+    @Override
+    public void count(String metric, long value) {
+        send(metric, value);
+    }
+
+    @Override
+    public void gauge(String metric, long value) {
+        Telemetry.sendGauge(scriptName, metric, value);
+    }
+
+    /**
+     * Records absolute totals and, at most once per interval, sends the deltas since the last flush.
+     */
+    public void flush(long scriptStartTimeMs, Map<String, Long> totals) {
+        long now = System.currentTimeMillis();
+        if (!tryBeginFlush(now)) {
+            return;
+        }
+        sendRuntime(scriptStartTimeMs, now);
+        drainSources();
+        for (Map.Entry<String, Long> entry : totals.entrySet()) {
+            Counter c = counter(entry.getKey());
+            c.record(entry.getValue());
+            send(entry.getKey(), c.takeDelta());
+        }
+    }
+
+    /**
+     * Sends every counter's delta since the last flush, for scripts that use {@link Counter#add(long)}.
+     */
+    public void flush(long scriptStartTimeMs) {
+        long now = System.currentTimeMillis();
+        if (!tryBeginFlush(now)) {
+            return;
+        }
+        sendRuntime(scriptStartTimeMs, now);
+        drainSources();
+        for (Map.Entry<String, Counter> entry : counters.entrySet()) {
+            if (!RUNTIME_METRIC.equals(entry.getKey())) {
+                send(entry.getKey(), entry.getValue().takeDelta());
+            }
+        }
+    }
+
+    public void tick(long scriptStartTimeMs, long currentCounterValue, String counterMetricName) {
+        long now = System.currentTimeMillis();
+        if (!tryBeginFlush(now)) {
+            return;
+        }
+        sendRuntime(scriptStartTimeMs, now);
+        drainSources();
+        Counter c = counter(counterMetricName);
+        c.record(currentCounterValue);
+        send(counterMetricName, c.takeDelta());
+    }
+
+    private void drainSources() {
+        for (TelemetrySource source : sources) {
+            source.drainTo(this);
+        }
+    }
+
+    private void sendRuntime(long scriptStartTimeMs, long now) {
+        Counter runtime = counter(RUNTIME_METRIC);
+        runtime.record((now - scriptStartTimeMs) / 1000);
+        send(RUNTIME_METRIC, runtime.takeDelta());
+    }
+
+    private void send(String metric, long delta) {
+        if (delta > 0) {
+            Telemetry.send(scriptName, metric, delta);
+        }
+    }
+
+    private boolean tryBeginFlush(long now) {
+        long last = lastFlushMs.get();
+        return now - last >= intervalMs && lastFlushMs.compareAndSet(last, now);
+    }
+
+    public static final class Counter {
+        private final LongAdder added = new LongAdder();
+        private final AtomicLong recorded = new AtomicLong();
+        private final AtomicLong reported = new AtomicLong();
+
+        private Counter() {
+        }
+
+        /**
+         * Adds to the counter from any thread.
+         */
+        public void add(long amount) {
+            if (amount > 0) {
+                added.add(amount);
+            }
+        }
+
+        /**
+         * Records an absolute running total, as tracked by the script. Totals never move backwards.
+         */
+        public void record(long total) {
+            long prev;
+            do {
+                prev = recorded.get();
+                if (total <= prev) {
+                    return;
+                }
+            } while (!recorded.compareAndSet(prev, total));
+        }
+
+        public long current() {
+            return added.sum() + recorded.get();
+        }
+
+        /**
+         * Claims everything not yet reported. Concurrent callers receive disjoint deltas.
+         */
+        public long takeDelta() {
+            while (true) {
+                long last = reported.get();
+                long cur = current();
+                if (cur <= last) {
+                    return 0;
+                }
+                if (reported.compareAndSet(last, cur)) {
+                    return cur - last;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.sainty.common;
+
+/**
+ * Something that reports its own metrics whenever its {@link TelemetrySession} flushes.
+ * Values are sent as-is, not as deltas, so sources decide for themselves when to reset.
+ */
+public interface TelemetrySource {
+    void drainTo(Sink sink);
+
+    interface Sink {
+        /**
+         * Something counted since the last drain; a count of zero is not sent.
+         */
+        void count(String metric, long value);
+
+        /**
+         * A level, ratio or percentile for the interval, sent as a gauge whatever its value.
+         */
+        void gauge(String metric, long value);
+    }
+}
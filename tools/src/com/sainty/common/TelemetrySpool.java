@@ -0,0 +1,332 @@
+package com.sainty.common;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only, memory-mapped spool for telemetry batches the endpoint did not accept.
+ * <p>
+ * Each segment is a fixed-size mapped file holding records framed as
+ * {@code [int length][int crc32][payload]}. A zero length marks the end of written data and a negative
+ * length marks a record that has already been replayed, so progress survives a restart.
+ * A new segment is only started when the active one is full; replay drains the active segment in place and
+ * reuses it. Once the total size would go over the cap, the oldest segment is deleted.
+ * <p>
+ * The default spool is shared by every client on the machine, so each process claims its own
+ * {@code client-N} directory under a file lock and only ever replays its own segments. A restarted client
+ * picks up whichever free directory it locks first, along with anything left in it.
+ */
+public final class TelemetrySpool {
+    private static final Path DEFAULT_DIR = Paths.get(
+            System.getProperty("user.home"),
+            "OSMB",
+            "Config",
+            "Telemetry",
+            "spool"
+    );
+    private static final int DEFAULT_SEGMENT_BYTES = 1 << 20;
+    private static final int DEFAULT_MAX_SEGMENTS = 16;
+    private static final int MAX_CLIENTS = 8;
+    private static final String LOCK_FILE = ".lock";
+    // Slots this JVM holds; reopening one to probe it and closing that channel would drop the process's lock
+    private static final Set<Path> CLAIMED = new HashSet<>();
+    private static final int HEADER_BYTES = 8;
+    private static final String PREFIX = "spool-";
+    private static final String SUFFIX = ".seg";
+
+    private final Path dir;
+    private final int segmentBytes;
+    private final int maxSegments;
+    private final Deque<Path> sealed = new ArrayDeque<>();
+    private final CRC32 crc = new CRC32();
+    private long nextSeq;
+    private Path activePath;
+    private FileChannel activeChannel;
+    private MappedByteBuffer active;
+    // Held open for the life of the process so no other client uses this directory
+    private FileChannel lockChannel;
+    private long appends;
+    private long appendNanos;
+    private long replayed;
+    private long droppedSegments;
+
+    public TelemetrySpool(Path dir, int segmentBytes, int maxSegments) throws IOException {
+        this.dir = dir;
+        this.segmentBytes = segmentBytes;
+        this.maxSegments = Math.max(2, maxSegments);
+        Files.createDirectories(dir);
+        for (Path p : listSegments()) {
+            sealed.addLast(p);
+            nextSeq = Math.max(nextSeq, seqOf(p) + 1);
+        }
+    }
+
+    /**
+     * Opens this process's spool under the user's OSMB config directory, or returns null if it can't be created
+     * or every client directory is locked by another process.
+     */
+    public static synchronized TelemetrySpool openDefault() {
+        for (int i = 0; i < MAX_CLIENTS; i++) {
+            Path slot = DEFAULT_DIR.resolve("client-" + i);
+            if (CLAIMED.contains(slot)) {
+                continue;
+            }
+            FileChannel channel = null;
+            try {
+                Files.createDirectories(slot);
+                channel = FileChannel.open(slot.resolve(LOCK_FILE), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+                FileLock lock = channel.tryLock();
+                if (lock != null) {
+                    TelemetrySpool spool = new TelemetrySpool(slot, DEFAULT_SEGMENT_BYTES, DEFAULT_MAX_SEGMENTS);
+                    spool.lockChannel = channel;
+                    CLAIMED.add(slot);
+                    return spool;
+                }
+            } catch (IOException | OverlappingFileLockException ignored) {
+            }
+            closeQuietly(channel);
+        }
+        return null;
+    }
+
+    public synchronized boolean append(String payload) {
+        long t0 = System.nanoTime();
+        byte[] bytes = payload.getBytes(StandardCharsets.UTF_8);
+        int needed = HEADER_BYTES + bytes.length;
+        // Keep room for the zero terminator so readers always find an end marker
+        if (needed + 4 > segmentBytes) {
+            return false;
+        }
+        try {
+            if (active == null || active.remaining() < needed + 4) {
+                rotate();
+            }
+        } catch (IOException e) {
+            return false;
+        }
+        crc.reset();
+        crc.update(bytes, 0, bytes.length);
+        int pos = active.position();
+        active.position(pos + 4);
+        active.putInt((int) crc.getValue());
+        active.put(bytes);
+        // Publish the length last so a torn write reads as end-of-segment
+        active.putInt(pos, bytes.length);
+        appends++;
+        appendNanos += System.nanoTime() - t0;
+        return true;
+    }
+
+    /**
+     * Replays pending records oldest-first. The sender returns true once a record is dealt with (delivered, or
+     * refused for good) and false to stop and keep it for the next replay. Returns the number replayed.
+     */
+    public synchronized int replay(Predicate<String> sender) {
+        int count = 0;
+        while (!sealed.isEmpty()) {
+            Path path = sealed.peekFirst();
+            int result;
+            try {
+                result = replaySegment(path, sender);
+            } catch (IOException e) {
+                result = -1;
+            }
+            if (result < 0) {
+                return count;
+            }
+            count += result;
+            sealed.pollFirst();
+            deleteQuietly(path);
+        }
+        if (active != null && active.position() > 0) {
+            count += replayActive(sender);
+        }
+        return count;
+    }
+
+    public synchronized boolean hasPending() {
+        return !sealed.isEmpty() || (active != null && active.position() > 0);
+    }
+
+    public synchronized long getAppends() {
+        return appends;
+    }
+
+    public synchronized double getAverageAppendMicros() {
+        return appends == 0 ? 0 : appendNanos / 1000.0 / appends;
+    }
+
+    public synchronized long getReplayed() {
+        return replayed;
+    }
+
+    public synchronized long getDroppedSegments() {
+        return droppedSegments;
+    }
+
+    /**
+     * Returns the number of records replayed, or -1 if the sender failed partway through.
+     */
+    private int replaySegment(Path path, Predicate<String> sender) throws IOException {
+        // Read through the channel rather than mapping, so the file isn't pinned when we delete it
+        try (FileChannel ch = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer buf = ByteBuffer.allocate((int) ch.size());
+            while (buf.hasRemaining() && ch.read(buf) >= 0) {
+            }
+            buf.flip();
+            ByteBuffer tombstone = ByteBuffer.allocate(4);
+            int count = 0;
+            CRC32 check = new CRC32();
+            while (buf.remaining() >= HEADER_BYTES) {
+                int pos = buf.position();
+                int length = buf.getInt();
+                int storedCrc = buf.getInt();
+                if (length == 0 || Math.abs(length) > buf.remaining()) {
+                    break;
+                }
+                if (length < 0) {
+                    buf.position(buf.position() - length);
+                    continue;
+                }
+                byte[] bytes = new byte[length];
+                buf.get(bytes);
+                check.reset();
+                check.update(bytes, 0, length);
+                if ((int) check.getValue() != storedCrc) {
+                    break;
+                }
+                if (!sender.test(new String(bytes, StandardCharsets.UTF_8))) {
+                    ch.force(false);
+                    return -1;
+                }
+                tombstone.clear();
+                tombstone.putInt(0, -length);
+                ch.write(tombstone, pos);
+                replayed++;
+                count++;
+            }
+            return count;
+        }
+    }
+
+    // Same as replaySegment, but over the mapped active segment, which is reused once everything in it is replayed
+    private int replayActive(Predicate<String> sender) {
+        int end = active.position();
+        int pos = 0;
+        int count = 0;
+        CRC32 check = new CRC32();
+        while (pos + HEADER_BYTES <= end) {
+            int length = active.getInt(pos);
+            int body = pos + HEADER_BYTES;
+            if (length == 0 || Math.abs(length) > end - body) {
+                break;
+            }
+            if (length < 0) {
+                pos = body - length;
+                continue;
+            }
+            byte[] bytes = new byte[length];
+            active.get(body, bytes);
+            check.reset();
+            check.update(bytes, 0, length);
+            if ((int) check.getValue() != active.getInt(pos + 4)) {
+                break;
+            }
+            if (!sender.test(new String(bytes, StandardCharsets.UTF_8))) {
+                return count;
+            }
+            active.putInt(pos, -length);
+            replayed++;
+            count++;
+            pos = body + length;
+        }
+        // Zero what was written so stale records past the new end marker can't be read back
+        int i = 0;
+        for (; i + Long.BYTES <= end; i += Long.BYTES) {
+            active.putLong(i, 0L);
+        }
+        for (; i < end; i++) {
+            active.put(i, (byte) 0);
+        }
+        active.position(0);
+        return count;
+    }
+
+    private void rotate() throws IOException {
+        if (active != null) {
+            seal();
+        }
+        while (sealed.size() >= maxSegments) {
+            deleteQuietly(sealed.pollFirst());
+            droppedSegments++;
+        }
+        activePath = dir.resolve(PREFIX + String.format("%016d", nextSeq++) + SUFFIX);
+        activeChannel = FileChannel.open(activePath,
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        active = activeChannel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+    }
+
+    private void seal() throws IOException {
+        active.force();
+        activeChannel.close();
+        sealed.addLast(activePath);
+        active = null;
+        activeChannel = null;
+        activePath = null;
+    }
+
+    private List<Path> listSegments() throws IOException {
+        List<Path> out = new ArrayList<>();
+        try (DirectoryStream<Path> ds = Files.newDirectoryStream(dir, PREFIX + "*" + SUFFIX)) {
+            for (Path p : ds) {
+                out.add(p);
+            }
+        }
+        out.sort((a, b) -> Long.compare(seqOf(a), seqOf(b)));
+        return out;
+    }
+
+    private static long seqOf(Path p) {
+        String name = p.getFileName().toString();
+        try {
+            return Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static void closeQuietly(FileChannel channel) {
+        if (channel == null) {
+            return;
+        }
+        try {
+            channel.close();
+        } catch (IOException ignored) {
+        }
+    }
+
+    private static void deleteQuietly(Path p) {
+        try {
+            Files.deleteIfExists(p);
+        } catch (IOException ignored) {
+        }
+    }
+}
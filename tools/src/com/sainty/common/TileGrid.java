@@ -0,0 +1,236 @@
+package com.sainty.common;
+
+import com.osmb.api.location.position.types.WorldPosition;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.function.Predicate;
+
+/**
+ * Occupied tiles (typically minimap NPC or player dots) for constant-time occupancy and adjacency tests and
+ * nearest-first queries.
+ * <p>
+ * Tiles are kept in an open-addressed set of packed plane/x/y keys, and in square buckets for the nearest
+ * queries. A nearest query searches bucket rings outward and hands candidates to the caller's check in order
+ * of distance, stopping as soon as enough have passed, so expensive checks such as projecting a tile cube
+ * only ever run on the closest few. Distances are straight-line on the origin's plane, like
+ * {@code WorldPosition.distanceTo}. Rebuild with {@link #clear()} and {@link #addAll(Iterable)} when the
+ * positions change. Not thread-safe.
+ */
+public final class TileGrid {
+    private static final int DEFAULT_BUCKET_SIZE = 8;
+    private static final int EMPTY_SLOT = 0;
+
+    private final int bucketSize;
+    private final Map<Long, List<WorldPosition>> buckets = new HashMap<>();
+    private long[] occupied = new long[64];
+    private int size;
+
+    public TileGrid() {
+        this(DEFAULT_BUCKET_SIZE);
+    }
+
+    public TileGrid(int bucketSize) {
+        this.bucketSize = bucketSize;
+    }
+
+    public void clear() {
+        buckets.clear();
+        if (size > 0) {
+            Arrays.fill(occupied, EMPTY_SLOT);
+            size = 0;
+        }
+    }
+
+    public TileGrid addAll(Iterable<WorldPosition> positions) {
+        if (positions != null) {
+            for (WorldPosition position : positions) {
+                add(position);
+            }
+        }
+        return this;
+    }
+
+    public void add(WorldPosition position) {
+        if (position == null) {
+            return;
+        }
+        long key = key(position.getX(), position.getY(), position.getPlane());
+        if (insert(key)) {
+            size++;
+            if (size * 2 > occupied.length) {
+                grow();
+            }
+        }
+        buckets.computeIfAbsent(bucketKey(Math.floorDiv(position.getX(), bucketSize),
+                Math.floorDiv(position.getY(), bucketSize), position.getPlane()), k -> new ArrayList<>(4)).add(position);
+    }
+
+    /**
+     * Number of distinct occupied tiles.
+     */
+    public int size() {
+        return size;
+    }
+
+    public boolean contains(WorldPosition position) {
+        return position != null && contains(position.getX(), position.getY(), position.getPlane());
+    }
+
+    public boolean contains(int x, int y, int plane) {
+        long key = key(x, y, plane);
+        int mask = occupied.length - 1;
+        for (int i = slot(key, mask); occupied[i] != EMPTY_SLOT; i = (i + 1) & mask) {
+            if (occupied[i] == key) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * True if a tile directly north, east, south or west of the position is occupied.
+     */
+    public boolean hasCardinalNeighbour(WorldPosition position) {
+        if (position == null) {
+            return false;
+        }
+        int x = position.getX();
+        int y = position.getY();
+        int plane = position.getPlane();
+        return contains(x + 1, y, plane) || contains(x - 1, y, plane)
+                || contains(x, y + 1, plane) || contains(x, y - 1, plane);
+    }
+
+    /**
+     * The closest position the check accepts, or null.
+     */
+    public WorldPosition nearest(WorldPosition origin, Predicate<WorldPosition> accept) {
+        List<WorldPosition> found = nearest(origin, 1, Double.MAX_VALUE, accept);
+        return found.isEmpty() ? null : found.get(0);
+    }
+
+    /**
+     * Up to k positions the check accepts, closest first, no further than maxDistance. The check runs in
+     * order of distance and stops once k have been accepted. A position added twice is offered twice.
+     */
+    public List<WorldPosition> nearest(WorldPosition origin, int k, double maxDistance, Predicate<WorldPosition> accept) {
+        List<WorldPosition> result = new ArrayList<>(Math.max(0, Math.min(k, 8)));
+        if (origin == null || k <= 0 || buckets.isEmpty()) {
+            return result;
+        }
+        int ox = origin.getX();
+        int oy = origin.getY();
+        int plane = origin.getPlane();
+        int bx = Math.floorDiv(ox, bucketSize);
+        int by = Math.floorDiv(oy, bucketSize);
+        double maxSquared = maxDistance * maxDistance;
+
+        int total = 0;
+        for (Map.Entry<Long, List<WorldPosition>> entry : buckets.entrySet()) {
+            if (entry.getKey() >>> 48 == plane) {
+                total += entry.getValue().size();
+            }
+        }
+        PriorityQueue<Candidate> heap = new PriorityQueue<>();
+        int seen = 0;
+        int order = 0;
+        for (int ring = 0; ; ring++) {
+            for (int dx = -ring; dx <= ring; dx++) {
+                for (int dy = -ring; dy <= ring; dy++) {
+                    if (Math.max(Math.abs(dx), Math.abs(dy)) != ring) {
+                        continue;
+                    }
+                    List<WorldPosition> bucket = buckets.get(bucketKey(bx + dx, by + dy, plane));
+                    if (bucket == null) {
+                        continue;
+                    }
+                    seen += bucket.size();
+                    for (WorldPosition p : bucket) {
+                        long ddx = p.getX() - ox;
+                        long ddy = p.getY() - oy;
+                        heap.add(new Candidate(p, ddx * ddx + ddy * ddy, order++));
+                    }
+                }
+            }
+
+            // Nothing in a further ring can be closer than this
+            long reach = (long) ring * bucketSize;
+            boolean exhausted = seen >= total || reach > maxDistance;
+            double bound = exhausted ? Double.MAX_VALUE : (double) reach * reach;
+            while (!heap.isEmpty() && heap.peek().distanceSquared <= bound) {
+                Candidate next = heap.poll();
+                if (next.distanceSquared > maxSquared) {
+                    return result;
+                }
+                if (accept == null || accept.test(next.position)) {
+                    result.add(next.position);
+                    if (result.size() >= k) {
+                        return result;
+                    }
+                }
+            }
+            if (exhausted) {
+                return result;
+            }
+        }
+    }
+
+    private boolean insert(long key) {
+        int mask = occupied.length - 1;
+        int i = slot(key, mask);
+        for (; occupied[i] != EMPTY_SLOT; i = (i + 1) & mask) {
+            if (occupied[i] == key) {
+                return false;
+            }
+        }
+        occupied[i] = key;
+        return true;
+    }
+
+    private void grow() {
+        long[] old = occupied;
+        occupied = new long[old.length * 2];
+        for (long key : old) {
+            if (key != EMPTY_SLOT) {
+                insert(key);
+            }
+        }
+    }
+
+    // Plane in the top bits and never-zero, so a packed key is never EMPTY_SLOT
+    private static long key(int x, int y, int plane) {
+        return ((long) (plane + 1) << 40) | ((long) (x & 0xFFFFF) << 20) | (y & 0xFFFFF);
+    }
+
+    private static long bucketKey(int bx, int by, int plane) {
+        return ((long) plane << 48) | ((bx & 0xFFFFFFL) << 24) | (by & 0xFFFFFFL);
+    }
+
+    private static int slot(long key, int mask) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+
+    private static final class Candidate implements Comparable<Candidate> {
+        final WorldPosition position;
+        final long distanceSquared;
+        final int order;
+
+        Candidate(WorldPosition position, long distanceSquared, int order) {
+            this.position = position;
+            this.distanceSquared = distanceSquared;
+            this.order = order;
+        }
+
+        @Override
+        public int compareTo(Candidate other) {
+            int c = Long.compare(distanceSquared, other.distanceSquared);
+            return c != 0 ? c : Integer.compare(order, other.order);
+        }
+    }
+}
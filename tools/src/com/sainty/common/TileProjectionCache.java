@@ -0,0 +1,266 @@
+package com.sainty.common;
+
+import com.osmb.api.ScriptCore;
+import com.osmb.api.location.position.types.WorldPosition;
+import com.osmb.api.shape.Polygon;
+import com.osmb.api.shape.Rectangle;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+/**
+ * Memoizes tile projections ({@code getTileCube} / {@code getTilePoly}, optionally resized) by tile, cube height
+ * and resize factor, for as long as the camera and the player stay put.
+ * <p>
+ * Call {@link #onNewFrame()} from the script's {@code onNewFrame}. The first lookup in a new frame projects the
+ * player's own tile and two tiles a few steps off along each axis (see {@link #viewFingerprint}): if the player
+ * hasn't moved and those tiles land in the same place (camera not turned, tilted or zoomed), every projection
+ * from earlier frames still holds and is reused, otherwise all of them are dropped.
+ * Whether a projection is inside the game screen depends on what interfaces are open, so that answer is only
+ * kept for the frame it was checked in. Use from the script thread.
+ */
+public final class TileProjectionCache implements TelemetrySource {
+    private static final int TILE_POLY = -1;
+    private static final Object NOT_ON_SCREEN = new Object();
+    // Far enough that a camera turn moves them clearly, near enough to stay on screen at normal zoom
+    private static final int FINGERPRINT_OFFSET = 4;
+
+    private final ScriptCore script;
+    private volatile long frame;
+    private long checkedFrame = -1;
+    private WorldPosition viewPosition;
+    private int[] viewTiles;
+
+    private long[] tiles = new long[64];
+    private long[] shapes = new long[64];
+    private Object[] projections = new Object[64];
+    private long[] visibleFrames = new long[64];
+    private boolean[] visible = new boolean[64];
+    private int size;
+
+    private long hits;
+    private long misses;
+    private long resets;
+
+    public TileProjectionCache(ScriptCore script) {
+        this.script = script;
+    }
+
+    public void onNewFrame() {
+        frame++;
+    }
+
+    /**
+     * Drops every projection, for when the view changed in a way the player's tile doesn't show.
+     */
+    public void invalidate() {
+        clear();
+        checkedFrame = -1;
+    }
+
+    /**
+     * Same as {@code getTileCube(tile, height).getResized(resize)}; a resize of 1 returns the cube as projected.
+     * Null if the tile doesn't project.
+     */
+    public Polygon getTileCube(WorldPosition tile, int height, double resize) {
+        int slot = lookup(tile, height, resize);
+        return slot >= 0 ? polygon(slot) : null;
+    }
+
+    /**
+     * Same as {@code getTilePoly(tile).getResized(resize)}.
+     */
+    public Polygon getTilePoly(WorldPosition tile, double resize) {
+        return getTileCube(tile, TILE_POLY, resize);
+    }
+
+    /**
+     * The resized tile cube if it is inside the game screen this frame, otherwise null.
+     */
+    public Polygon getVisibleTileCube(WorldPosition tile, int height, double resize) {
+        int slot = lookup(tile, height, resize);
+        if (slot < 0) {
+            return null;
+        }
+        Polygon polygon = polygon(slot);
+        if (polygon == null) {
+            return null;
+        }
+        long current = frame;
+        if (visibleFrames[slot] != current) {
+            var wm = script.getWidgetManager();
+            visible[slot] = wm != null && wm.insideGameScreen(polygon, Collections.emptyList());
+            visibleFrames[slot] = current;
+        }
+        return visible[slot] ? polygon : null;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public long getMisses() {
+        return misses;
+    }
+
+    @Override
+    public void drainTo(Sink sink) {
+        long total = hits + misses;
+        if (total == 0) {
+            return;
+        }
+        sink.count("projection_cache_hits", hits);
+        sink.count("projection_cache_misses", misses);
+        sink.gauge("projection_cache_hit_pct", hits * 100 / total);
+        sink.count("projection_cache_resets", resets);
+        hits = 0;
+        misses = 0;
+        resets = 0;
+    }
+
+    private Polygon polygon(int slot) {
+        Object projection = projections[slot];
+        return projection == NOT_ON_SCREEN ? null : (Polygon) projection;
+    }
+
+    private int lookup(WorldPosition tile, int height, double resize) {
+        if (tile == null) {
+            return -1;
+        }
+        sync();
+        long tileKey = tileKey(tile);
+        long shapeKey = ((long) height << 32) | Float.floatToIntBits((float) resize);
+        int mask = tiles.length - 1;
+        int i = slot(tileKey, shapeKey, mask);
+        for (; projections[i] != null; i = (i + 1) & mask) {
+            if (tiles[i] == tileKey && shapes[i] == shapeKey) {
+                hits++;
+                return i;
+            }
+        }
+        misses++;
+        if ((size + 1) * 2 > tiles.length) {
+            grow();
+            mask = tiles.length - 1;
+            i = slot(tileKey, shapeKey, mask);
+            while (projections[i] != null) {
+                i = (i + 1) & mask;
+            }
+        }
+        Polygon projection = project(tile, height, resize);
+        tiles[i] = tileKey;
+        shapes[i] = shapeKey;
+        projections[i] = projection != null ? projection : NOT_ON_SCREEN;
+        visibleFrames[i] = -1;
+        size++;
+        return i;
+    }
+
+    private Polygon project(WorldPosition tile, int height, double resize) {
+        var projector = script.getSceneProjector();
+        if (projector == null) {
+            return null;
+        }
+        Polygon polygon = height == TILE_POLY ? projector.getTilePoly(tile) : projector.getTileCube(tile, height);
+        if (polygon == null || resize == 1.0) {
+            return polygon;
+        }
+        Polygon resized = polygon.getResized(resize);
+        return resized != null && resized.getBounds() != null ? resized : null;
+    }
+
+    private void sync() {
+        long current = frame;
+        if (current == checkedFrame) {
+            return;
+        }
+        checkedFrame = current;
+
+        WorldPosition position = script.getWorldPosition();
+        int[] tiles = viewFingerprint(script, position);
+        if (position == null || !position.equals(viewPosition) || !Arrays.equals(tiles, viewTiles)) {
+            if (size > 0) {
+                resets++;
+            }
+            clear();
+            viewPosition = position;
+            viewTiles = tiles;
+        }
+    }
+
+    /**
+     * Screen bounds of the given tile and of the tiles {@value #FINGERPRINT_OFFSET} steps east and north of it,
+     * or null without a position or projector. A single tile's bounds look the same after a quarter turn of the
+     * camera; the two offset tiles move, so equal fingerprints mean the same view. Tiles that don't project
+     * record as zeros.
+     */
+    public static int[] viewFingerprint(ScriptCore script, WorldPosition position) {
+        var projector = script.getSceneProjector();
+        if (position == null || projector == null) {
+            return null;
+        }
+        int[] fingerprint = new int[12];
+        addBounds(fingerprint, 0, projector.getTilePoly(position));
+        addBounds(fingerprint, 4, projector.getTilePoly(
+                new WorldPosition(position.getX() + FINGERPRINT_OFFSET, position.getY(), position.getPlane())));
+        addBounds(fingerprint, 8, projector.getTilePoly(
+                new WorldPosition(position.getX(), position.getY() + FINGERPRINT_OFFSET, position.getPlane())));
+        return fingerprint;
+    }
+
+    private static void addBounds(int[] fingerprint, int offset, Polygon tile) {
+        Rectangle bounds = tile != null ? tile.getBounds() : null;
+        if (bounds == null) {
+            return;
+        }
+        fingerprint[offset] = bounds.x;
+        fingerprint[offset + 1] = bounds.y;
+        fingerprint[offset + 2] = bounds.width;
+        fingerprint[offset + 3] = bounds.height;
+    }
+
+    private void clear() {
+        if (size > 0) {
+            Arrays.fill(projections, null);
+            size = 0;
+        }
+    }
+
+    private void grow() {
+        long[] oldTiles = tiles;
+        long[] oldShapes = shapes;
+        Object[] oldProjections = projections;
+        long[] oldVisibleFrames = visibleFrames;
+        boolean[] oldVisible = visible;
+        int capacity = oldTiles.length * 2;
+        tiles = new long[capacity];
+        shapes = new long[capacity];
+        projections = new Object[capacity];
+        visibleFrames = new long[capacity];
+        visible = new boolean[capacity];
+        int mask = capacity - 1;
+        for (int j = 0; j < oldTiles.length; j++) {
+            if (oldProjections[j] == null) {
+                continue;
+            }
+            int i = slot(oldTiles[j], oldShapes[j], mask);
+            while (projections[i] != null) {
+                i = (i + 1) & mask;
+            }
+            tiles[i] = oldTiles[j];
+            shapes[i] = oldShapes[j];
+            projections[i] = oldProjections[j];
+            visibleFrames[i] = oldVisibleFrames[j];
+            visible[i] = oldVisible[j];
+        }
+    }
+
+    private static long tileKey(WorldPosition position) {
+        return ((long) position.getPlane() << 40) | ((long) (position.getX() & 0xFFFFF) << 20) | (position.getY() & 0xFFFFF);
+    }
+
+    private static int slot(long tileKey, long shapeKey, int mask) {
+        long h = (tileKey * 31 + shapeKey) * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+}
@@ -0,0 +1,240 @@
+package com.sainty.common;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * JVM-wide cache of the remote versions.json, parsed once into a map shared by every script.
+ * <p>
+ * The parsed map is persisted with its ETag/Last-Modified. A fresh entry is answered immediately.
+ * A stale entry is also answered immediately while a background thread revalidates it with a
+ * conditional GET. Only a cold start with nothing on disk waits on the network.
+ * <p>
+ * The version check goes through {@link #versionsFor(String, double)} instead, which revalidates before
+ * answering whenever the entry is stale or disagrees with the local version. If that revalidation fails it
+ * answers null, like an unreachable endpoint, so a script is never stopped on an old copy.
+ */
+public final class VersionCache {
+    private static final String VERSIONS_URL =
+            "https://raw.githubusercontent.com/ytniaS/SaintyScripts/main/versions.json";
+    private static final Path DEFAULT_FILE = Paths.get(
+            System.getProperty("user.home"),
+            "OSMB",
+            "Config",
+            "Versions",
+            "versions.cache"
+    );
+    private static final long DEFAULT_FRESH_MS = 10 * 60_000L;
+    private static final int TIMEOUT_MS = 3000;
+    private static final Pattern ENTRY =
+            Pattern.compile("\"((?:[^\"\\\\]|\\\\.)*)\"\\s*:\\s*([0-9]+(?:\\.[0-9]+)?)");
+    private static final String KEY_ETAG = "etag";
+    private static final String KEY_LAST_MODIFIED = "lastModified";
+    private static final String KEY_FETCHED_AT = "fetchedAt";
+    private static final String VERSION_PREFIX = "v.";
+
+    private static volatile VersionCache shared;
+
+    private final String url;
+    private final Path file;
+    private final long freshMs;
+    private final AtomicBoolean refreshing = new AtomicBoolean();
+    private volatile Snapshot snapshot;
+
+    public VersionCache(String url, Path file, long freshMs) {
+        this.url = url;
+        this.file = file;
+        this.freshMs = freshMs;
+        this.snapshot = load(file);
+    }
+
+    public static VersionCache shared() {
+        VersionCache c = shared;
+        if (c != null) {
+            return c;
+        }
+        synchronized (VersionCache.class) {
+            if (shared == null) {
+                shared = new VersionCache(VERSIONS_URL, DEFAULT_FILE, DEFAULT_FRESH_MS);
+            }
+            return shared;
+        }
+    }
+
+    /**
+     * Returns the known versions, or null if they have never been fetched and the endpoint is unreachable.
+     */
+    public Map<String, Double> versions() {
+        Snapshot s = snapshot;
+        if (s == null) {
+            return refresh() ? snapshot.versions : null;
+        }
+        if (System.currentTimeMillis() - s.fetchedAt >= freshMs) {
+            refreshInBackground();
+        }
+        return s.versions;
+    }
+
+    /**
+     * Like {@link #versions()}, but if the entry is stale or doesn't match {@code local} for {@code name}, the
+     * entry is revalidated (usually a 304) before answering. Null if that revalidation fails: only a fresh entry
+     * that matches is answered from the cache.
+     */
+    public Map<String, Double> versionsFor(String name, double local) {
+        Snapshot s = snapshot;
+        boolean stale = s == null || System.currentTimeMillis() - s.fetchedAt >= freshMs;
+        if (stale || !matches(s.versions.get(name), local)) {
+            if (!revalidate()) {
+                return null;
+            }
+            s = snapshot;
+        }
+        return s.versions;
+    }
+
+    public void refreshInBackground() {
+        if (!refreshing.compareAndSet(false, true)) {
+            return;
+        }
+        Thread t = new Thread(() -> {
+            try {
+                refresh();
+            } finally {
+                refreshing.set(false);
+            }
+        }, "sainty-version-refresh");
+        t.setDaemon(true);
+        t.start();
+    }
+
+    /**
+     * Revalidates against the endpoint. Returns true if the cache now holds a usable snapshot.
+     */
+    public boolean refresh() {
+        return revalidate() || snapshot != null;
+    }
+
+    // True only if the endpoint answered with the file or a 304 for the cached copy
+    private boolean revalidate() {
+        Snapshot current = snapshot;
+        try {
+            HttpURLConnection conn = (HttpURLConnection) new URL(url).openConnection();
+            conn.setConnectTimeout(TIMEOUT_MS);
+            conn.setReadTimeout(TIMEOUT_MS);
+            if (current != null) {
+                if (current.etag != null) {
+                    conn.setRequestProperty("If-None-Match", current.etag);
+                }
+                if (current.lastModified != null) {
+                    conn.setRequestProperty("If-Modified-Since", current.lastModified);
+                }
+            }
+            int code = conn.getResponseCode();
+            long now = System.currentTimeMillis();
+            if (code == HttpURLConnection.HTTP_NOT_MODIFIED && current != null) {
+                snapshot = new Snapshot(current.versions, current.etag, current.lastModified, now);
+                save(snapshot);
+                return true;
+            }
+            if (code != HttpURLConnection.HTTP_OK) {
+                return false;
+            }
+            String body;
+            try (InputStream in = conn.getInputStream()) {
+                body = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            }
+            snapshot = new Snapshot(parse(body),
+                    conn.getHeaderField("ETag"), conn.getHeaderField("Last-Modified"), now);
+            save(snapshot);
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private static boolean matches(Double remote, double local) {
+        return remote != null && Double.compare(local, remote) == 0;
+    }
+
+    static Map<String, Double> parse(String json) {
+        Map<String, Double> out = new LinkedHashMap<>();
+        Matcher m = ENTRY.matcher(json);
+        while (m.find()) {
+            out.put(m.group(1), Double.parseDouble(m.group(2)));
+        }
+        return Collections.unmodifiableMap(out);
+    }
+
+    private void save(Snapshot s) {
+        Properties p = new Properties();
+        if (s.etag != null) {
+            p.setProperty(KEY_ETAG, s.etag);
+        }
+        if (s.lastModified != null) {
+            p.setProperty(KEY_LAST_MODIFIED, s.lastModified);
+        }
+        p.setProperty(KEY_FETCHED_AT, Long.toString(s.fetchedAt));
+        for (Map.Entry<String, Double> e : s.versions.entrySet()) {
+            p.setProperty(VERSION_PREFIX + e.getKey(), Double.toString(e.getValue()));
+        }
+        try {
+            Files.createDirectories(file.getParent());
+            Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+            try (OutputStream out = Files.newOutputStream(tmp)) {
+                p.store(out, "Cached versions.json");
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException ignored) {
+        }
+    }
+
+    private static Snapshot load(Path file) {
+        if (!Files.exists(file)) {
+            return null;
+        }
+        Properties p = new Properties();
+        try (InputStream in = Files.newInputStream(file)) {
+            p.load(in);
+            Map<String, Double> versions = new LinkedHashMap<>();
+            for (String key : p.stringPropertyNames()) {
+                if (key.startsWith(VERSION_PREFIX)) {
+                    versions.put(key.substring(VERSION_PREFIX.length()), Double.parseDouble(p.getProperty(key)));
+                }
+            }
+            long fetchedAt = Long.parseLong(p.getProperty(KEY_FETCHED_AT, "0"));
+            return new Snapshot(Collections.unmodifiableMap(versions),
+                    p.getProperty(KEY_ETAG), p.getProperty(KEY_LAST_MODIFIED), fetchedAt);
+        } catch (IOException | NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static final class Snapshot {
+        final Map<String, Double> versions;
+        final String etag;
+        final String lastModified;
+        final long fetchedAt;
+
+        Snapshot(Map<String, Double> versions, String etag, String lastModified, long fetchedAt) {
+            this.versions = versions;
+            this.etag = etag;
+            this.lastModified = lastModified;
+            this.fetchedAt = fetchedAt;
+        }
+    }
+}
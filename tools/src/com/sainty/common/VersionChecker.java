@@ -1,25 +1,11 @@
 package com.sainty.common;
 
-import java.io.BufferedReader;
-import java.io.InputStreamReader;
-import java.net.HttpURLConnection;
-import java.net.URL;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.Map;
 
 import com.osmb.api.script.Script;
 import com.osmb.api.script.ScriptDefinition;
 
 public final class VersionChecker {
-	private static final String VERSIONS_URL =
-			"https://raw.githubusercontent.com/ytniaS/SaintyScripts/main/versions.json";
-	
-	private static Pattern entryPattern(String name) {
-		return Pattern.compile(
-				"\"" + Pattern.quote(name) + "\"\\s*:\\s*([0-9]+(?:\\.[0-9]+)?)"
-		                      );
-	}
-	
 	private VersionChecker() {}
 	
 	public static boolean isExactVersion(Script script) {
@@ -30,44 +16,27 @@ public final class VersionChecker {
 		}
 		String name = def.name();
 		double local = def.version();
-		try {
-			String json = fetch(VERSIONS_URL);
-			script.log(name, "Local version: " + local);
-			Matcher m = entryPattern(name).matcher(json);
-			if (!m.find()) {
-				script.log(name,
-				           "Version entry NOT FOUND in versions.json — stopping");
-				return false;
-			}
-			double remote = Double.parseDouble(m.group(1));
-			script.log(name, "Remote version: " + remote);
-			if (Double.compare(local, remote) != 0) {
-				script.log(name,
-				           "Version mismatch — local=" + local +
-						           " remote=" + remote + " — stopping");
-				return false;
-			}
-			script.log(name, "Version OK");
-			return true;
-		} catch (Exception e) {
+		Map<String, Double> versions = VersionCache.shared().versionsFor(name, local);
+		if (versions == null) {
 			script.log(name,
 			           "Version check failed (network) — allowing run");
 			return true; // allow if GitHub is down
 		}
-	}
-	
-	private static String fetch(String url) throws Exception {
-		HttpURLConnection conn =
-				(HttpURLConnection) new URL(url).openConnection();
-		conn.setConnectTimeout(3000);
-		conn.setReadTimeout(3000);
-		try (BufferedReader r =
-				     new BufferedReader(
-						     new InputStreamReader(conn.getInputStream()))) {
-			StringBuilder sb = new StringBuilder();
-			String line;
-			while ((line = r.readLine()) != null) {sb.append(line);}
-			return sb.toString();
+		script.log(name, "Local version: " + local);
+		Double remote = versions.get(name);
+		if (remote == null) {
+			script.log(name,
+			           "Version entry NOT FOUND in versions.json — stopping");
+			return false;
+		}
+		script.log(name, "Remote version: " + remote);
+		if (Double.compare(local, remote) != 0) {
+			script.log(name,
+			           "Version mismatch — local=" + local +
+					           " remote=" + remote + " — stopping");
+			return false;
 		}
+		script.log(name, "Version OK");
+		return true;
 	}
 }
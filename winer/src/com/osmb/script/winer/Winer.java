@@ -11,6 +11,7 @@ import com.osmb.api.shape.Polygon;
 import com.osmb.api.shape.Rectangle;
 import com.osmb.api.utils.RandomUtils;
 import com.osmb.api.walker.WalkConfig;
+import com.sainty.common.OcrCache;
 import com.sainty.common.Telemetry;
 import javafx.scene.Scene;
 
@@ -86,6 +87,7 @@ public class Winer extends Script {
     public void onStart() {
         scriptStartTime = System.currentTimeMillis();
         Telemetry.sessionStart(SCRIPT_NAME);
+        Telemetry.register(SCRIPT_NAME, OcrCache.shared());
 
         WinerOptions ui = new WinerOptions(selectedMode -> mode = selectedMode);
         Scene scene = new Scene(ui);